@@ -1,13 +1,20 @@
 package com.example;
 
+import com.example.config.AlarmProperties;
+import com.example.config.ArchiveProperties;
 import com.example.config.CentralMonitoringProperties;
+import com.example.config.DewPointProperties;
 import com.example.config.KafkaProperties;
+import com.example.config.LatenessProperties;
+import com.example.config.SketchProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
-@EnableConfigurationProperties({CentralMonitoringProperties.class, KafkaProperties.class})
+@EnableConfigurationProperties({CentralMonitoringProperties.class, KafkaProperties.class, ArchiveProperties.class,
+        SketchProperties.class, DewPointProperties.class, AlarmProperties.class,
+        LatenessProperties.class})
 public class CentralMonitoringApplication {
     public static void main(String[] args) {
         SpringApplication.run(CentralMonitoringApplication.class, args);
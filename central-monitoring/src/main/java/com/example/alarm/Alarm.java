@@ -0,0 +1,17 @@
+package com.example.alarm;
+
+public record Alarm(
+        Type type,
+        String warehouseId,
+        String sensorId,
+        double value,
+        double threshold,
+        long timestamp,
+        String message
+) {
+    public enum Type {
+        TEMPERATURE_THRESHOLD,
+        HUMIDITY_THRESHOLD,
+        CONDENSATION_RISK
+    }
+}
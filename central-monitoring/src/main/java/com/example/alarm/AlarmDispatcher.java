@@ -0,0 +1,244 @@
+package com.example.alarm;
+
+import com.example.config.AlarmProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decouples alarm evaluation from delivery. {@link #dispatch} only offers the alarm to a bounded queue per
+ * sink and never blocks; each sink drains its queue into batches and delivers them on separate threads,
+ * at most {@code max-concurrency} at a time, retrying with exponential backoff behind a circuit breaker.
+ * While the circuit is open alarms stay queued, batches that were being retried go back to the head of the
+ * queue, and draining resumes with a single trial batch. A slow or dead sink therefore only fills and
+ * overflows its own queue.
+ * <p>
+ * Drain loops and deliveries share a fixed pool of daemon threads: one drain thread per sink plus its
+ * {@code max-concurrency} delivery permits, so the pool never queues work behind a stuck sink.
+ */
+@Slf4j
+@Service
+public class AlarmDispatcher {
+    private static final long MIN_OPEN_POLL_MILLIS = 10;
+    private static final long MAX_OPEN_POLL_MILLIS = 1_000;
+
+    private final AlarmProperties properties;
+    private final List<SinkChannel> channels = new ArrayList<>();
+    private final ExecutorService executor;
+    private final CountDownLatch drained;
+    private volatile boolean running;
+
+    public AlarmDispatcher(AlarmProperties properties, List<AlarmSink> sinks) {
+        this.properties = properties;
+        for (AlarmSink sink : sinks) {
+            channels.add(new SinkChannel(sink));
+        }
+        this.drained = new CountDownLatch(channels.size());
+        this.executor = newExecutor(Math.max(1, channels.size() * (properties.maxConcurrency() + 1)));
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (SinkChannel channel : channels) {
+            executor.execute(channel::drainLoop);
+        }
+        log.info("Alarm dispatcher started. Sinks: {}", channels.stream().map(c -> c.sink.name()).toList());
+    }
+
+    /** Queues the alarm for every sink; alarms are dropped for sinks whose queue is full. */
+    public void dispatch(Alarm alarm) {
+        for (SinkChannel channel : channels) {
+            channel.offer(alarm);
+        }
+    }
+
+    public List<SinkStats> stats() {
+        return channels.stream().map(SinkChannel::stats).toList();
+    }
+
+    /** Stops accepting batches once the queues are drained and waits briefly for in-flight deliveries. */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            drained.await(properties.linger().toMillis() + 5_000, TimeUnit.MILLISECONDS);
+            executor.shutdown();
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        AtomicInteger created = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "alarm-delivery-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public record SinkStats(
+            String sink,
+            int queued,
+            long dropped,
+            long delivered,
+            long failed,
+            String circuit
+    ) {}
+
+    private final class SinkChannel {
+        final AlarmSink sink;
+        final BlockingDeque<Alarm> queue = new LinkedBlockingDeque<>(properties.queueCapacity());
+        final Semaphore permits = new Semaphore(properties.maxConcurrency());
+        final CircuitBreaker breaker = new CircuitBreaker(
+                properties.failureThreshold(), properties.openDuration().toMillis(), System::currentTimeMillis);
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong delivered = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+
+        SinkChannel(AlarmSink sink) {
+            this.sink = sink;
+        }
+
+        void offer(Alarm alarm) {
+            if (!queue.offerLast(alarm)) {
+                drop(1);
+            }
+        }
+
+        /** Puts alarms that could not be delivered yet back at the head of the queue, in order. */
+        void requeue(List<Alarm> alarms) {
+            for (int i = alarms.size() - 1; i >= 0; i--) {
+                if (!queue.offerFirst(alarms.get(i))) {
+                    drop(i + 1);
+                    return;
+                }
+            }
+        }
+
+        private void drop(int count) {
+            long before = dropped.getAndAdd(count);
+            if (before % 100 == 0 || before / 100 != (before + count - 1) / 100) {
+                log.warn("Alarm queue of sink {} full, {} alarms dropped so far", sink.name(), before + count);
+            }
+        }
+
+        /** Sleeps while the circuit is open, at most until its trial is due. */
+        private void awaitTrial() throws InterruptedException {
+            long wait = breaker.millisUntilTrial();
+            Thread.sleep(Math.min(Math.max(wait, MIN_OPEN_POLL_MILLIS), MAX_OPEN_POLL_MILLIS));
+        }
+
+        void drainLoop() {
+            long lingerNanos = properties.linger().toNanos();
+            try {
+                while (running || !queue.isEmpty()) {
+                    // take a delivery slot first, so batches being retried are requeued before the next is taken
+                    permits.acquire();
+                    Alarm first = queue.pollFirst(lingerNanos, TimeUnit.NANOSECONDS);
+                    if (first == null) {
+                        permits.release();
+                        continue;
+                    }
+                    // the first delivery attempt of the batch uses this admission
+                    if (!breaker.allowRequest()) {
+                        requeue(List.of(first));
+                        permits.release();
+                        if (!running) {
+                            break;
+                        }
+                        awaitTrial();
+                        continue;
+                    }
+                    List<Alarm> batch = new ArrayList<>(properties.maxBatchSize());
+                    batch.add(first);
+                    long deadline = System.nanoTime() + lingerNanos;
+                    while (batch.size() < properties.maxBatchSize()) {
+                        queue.drainTo(batch, properties.maxBatchSize() - batch.size());
+                        long remaining = deadline - System.nanoTime();
+                        if (batch.size() >= properties.maxBatchSize() || remaining <= 0 || !running) {
+                            break;
+                        }
+                        Alarm next = queue.pollFirst(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+
+                    executor.execute(() -> {
+                        try {
+                            deliver(batch);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                drained.countDown();
+            }
+        }
+
+        void deliver(List<Alarm> batch) {
+            long backoff = properties.initialBackoff().toMillis();
+            for (int attempt = 1; ; attempt++) {
+                if (attempt > 1 && !breaker.allowRequest()) {
+                    requeue(batch);
+                    log.warn("Circuit of alarm sink {} is open, requeued {} alarms", sink.name(), batch.size());
+                    return;
+                }
+                try {
+                    sink.deliver(batch);
+                    breaker.onSuccess();
+                    delivered.addAndGet(batch.size());
+                    return;
+                } catch (Exception e) {
+                    breaker.onFailure();
+                    if (attempt >= properties.maxAttempts()) {
+                        failed.addAndGet(batch.size());
+                        log.error("Giving up delivering {} alarms to sink {} after {} attempts",
+                                batch.size(), sink.name(), attempt, e);
+                        return;
+                    }
+                    log.warn("Delivery of {} alarms to sink {} failed (attempt {}): {}",
+                            batch.size(), sink.name(), attempt, e.toString());
+                }
+                try {
+                    // jitter keeps retries of concurrent batches from hitting the sink in lockstep
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.addAndGet(batch.size());
+                    return;
+                }
+                backoff = Math.min(backoff * 2, properties.maxBackoff().toMillis());
+            }
+        }
+
+        SinkStats stats() {
+            return new SinkStats(sink.name(), queue.size(), dropped.get(), delivered.get(), failed.get(),
+                    breaker.state().name());
+        }
+    }
+}
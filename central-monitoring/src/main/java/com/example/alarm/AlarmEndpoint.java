@@ -0,0 +1,25 @@
+package com.example.alarm;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Exposes per-sink alarm delivery counters and circuit state at {@code /actuator/alarmsinks}.
+ */
+@Component
+@Endpoint(id = "alarmsinks")
+public class AlarmEndpoint {
+    private final AlarmDispatcher dispatcher;
+
+    public AlarmEndpoint(AlarmDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @ReadOperation
+    public List<AlarmDispatcher.SinkStats> sinks() {
+        return dispatcher.stats();
+    }
+}
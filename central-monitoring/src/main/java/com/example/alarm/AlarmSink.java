@@ -0,0 +1,15 @@
+package com.example.alarm;
+
+import java.util.List;
+
+/**
+ * Destination for alarms. {@link #deliver} is called from the dispatcher's delivery threads, with at most
+ * {@code max-concurrency} calls in flight per sink, and may block.
+ */
+public interface AlarmSink {
+
+    String name();
+
+    /** Delivers a batch; any exception counts as a failed attempt and is retried with backoff. */
+    void deliver(List<Alarm> alarms) throws Exception;
+}
@@ -0,0 +1,42 @@
+package com.example.alarm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends alarms to a file as JSON lines, one write per batch.
+ */
+public class FileAlarmSink implements AlarmSink {
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileAlarmSink(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void deliver(List<Alarm> alarms) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (Alarm alarm : alarms) {
+            lines.write(objectMapper.writeValueAsBytes(alarm));
+            lines.write('\n');
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(path, lines.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.alarm;
+
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Publishes alarms to a Kafka topic keyed by warehouse, waiting for the broker to acknowledge the batch.
+ */
+public class KafkaAlarmSink implements AlarmSink {
+    private final KafkaSender<String, Alarm> kafkaSender;
+    private final String topic;
+    private final Duration timeout;
+
+    public KafkaAlarmSink(KafkaSender<String, Alarm> kafkaSender, String topic, Duration timeout) {
+        this.kafkaSender = kafkaSender;
+        this.topic = topic;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String name() {
+        return "kafka";
+    }
+
+    @Override
+    public void deliver(List<Alarm> alarms) {
+        kafkaSender.send(Flux.fromIterable(alarms)
+                        .map(alarm -> SenderRecord.<String, Alarm, Void>create(
+                                topic, null, alarm.timestamp(), alarm.warehouseId(), alarm, null)))
+                .doOnNext(result -> {
+                    if (result.exception() != null) {
+                        throw new IllegalStateException("Failed to publish alarm", result.exception());
+                    }
+                })
+                .then()
+                .block(timeout);
+    }
+
+    public void close() {
+        kafkaSender.close();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.archive;
+
+/**
+ * Range scan over archived readings of one warehouse. {@code fromMillis} is inclusive, {@code toMillis}
+ * exclusive; {@code sensorId} may be null to match every sensor.
+ */
+public record ArchiveQuery(
+        String warehouseId,
+        long fromMillis,
+        long toMillis,
+        String sensorId,
+        double minValue,
+        double maxValue
+) {
+    public static ArchiveQuery timeRange(String warehouseId, long fromMillis, long toMillis) {
+        return new ArchiveQuery(warehouseId, fromMillis, toMillis, null,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    public ArchiveQuery withSensor(String sensorId) {
+        return new ArchiveQuery(warehouseId, fromMillis, toMillis, sensorId, minValue, maxValue);
+    }
+
+    public ArchiveQuery withValueRange(double minValue, double maxValue) {
+        return new ArchiveQuery(warehouseId, fromMillis, toMillis, sensorId, minValue, maxValue);
+    }
+
+    boolean overlapsTime(long minTs, long maxTs) {
+        return maxTs >= fromMillis && minTs < toMillis;
+    }
+
+    boolean overlapsValues(double min, double max) {
+        return max >= minValue && min <= maxValue;
+    }
+
+    boolean matches(ArchivedReading reading) {
+        return reading.timestamp() >= fromMillis && reading.timestamp() < toMillis
+                && (sensorId == null || sensorId.equals(reading.sensorId()))
+                && reading.value() >= minValue && reading.value() <= maxValue;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.archive;
+
+import com.example.data.SensorData;
+
+public record ArchivedReading(
+        long timestamp,
+        String warehouseId,
+        String sensorId,
+        SensorData.SensorType type,
+        double value
+) {}
@@ -0,0 +1,251 @@
+package com.example.archive;
+
+import com.example.config.ArchiveProperties;
+import com.example.data.SensorData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cold-storage sink for readings. {@link #append} only enqueues; a single writer thread drains the queue in
+ * batches and appends them to one segment file per warehouse and hour. A segment is sealed with a footer
+ * once the newest reading archived for its warehouse is {@code seal-grace} past the end of its hour, or once
+ * it has not been written to for {@code seal-grace}. Sealing follows the readings' own timestamps rather than
+ * the wall clock, so catching up on old readings fills one segment per hour instead of one per batch.
+ * Readings dated more than {@code seal-grace} ahead of the wall clock are archived but do not move that
+ * time, so a sensor with a wrong clock cannot get every open segment sealed.
+ */
+@Slf4j
+@Service
+public class ReadingArchive {
+    private final ArchiveProperties properties;
+    private final Path directory;
+    private final BlockingQueue<ArchivedReading> queue;
+    private final Map<SegmentKey, OpenSegment> openSegments = new HashMap<>();
+    private final Map<String, Long> newestTimestamps = new HashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public ReadingArchive(ArchiveProperties properties) {
+        this.properties = properties;
+        this.directory = Paths.get(properties.directory());
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.enabled()) {
+            log.info("Reading archive disabled");
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "reading-archive-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Reading archive started. Directory: {}", directory.toAbsolutePath());
+    }
+
+    /**
+     * Queues a reading for archiving without blocking. Readings are dropped when the writer falls behind
+     * rather than slowing down threshold evaluation.
+     */
+    public void append(long timestamp, SensorData reading) {
+        if (!running) {
+            return;
+        }
+        ArchivedReading archived = new ArchivedReading(
+                timestamp, reading.warehouseId(), reading.sensorId(), reading.type(), reading.value());
+        if (!queue.offer(archived) && dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("Archive queue full, {} readings dropped so far", dropped.get());
+        }
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Scans archived readings of one warehouse. Segments outside the time range are skipped by file name,
+     * sealed segments whose footer rules out the sensor or value range are skipped without decoding.
+     *
+     * @return number of readings passed to the consumer
+     */
+    public long scan(ArchiveQuery query, Consumer<ArchivedReading> consumer) {
+        Path warehouseDir = directory.resolve(SegmentFormat.directoryName(query.warehouseId()));
+        if (!Files.isDirectory(warehouseDir)) {
+            return 0;
+        }
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(warehouseDir, "*" + SegmentFormat.EXTENSION)) {
+            for (Path path : stream) {
+                long hour = SegmentFormat.hourOf(path.getFileName().toString());
+                if (hour >= 0 && query.overlapsTime(hour * SegmentFormat.HOUR_MILLIS,
+                        (hour + 1) * SegmentFormat.HOUR_MILLIS - 1)) {
+                    segments.add(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.sort(null);
+
+        long matched = 0;
+        for (Path segment : segments) {
+            try {
+                matched += SegmentReader.open(segment).scan(query, consumer);
+            } catch (IOException e) {
+                log.warn("Skipping unreadable archive segment {}", segment, e);
+            }
+        }
+        return matched;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<ArchivedReading> batch = new ArrayList<>(properties.batchSize());
+        long flushMillis = properties.flushInterval().toMillis();
+        while (running || !queue.isEmpty()) {
+            try {
+                ArchivedReading first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, properties.batchSize() - 1);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+                sealExpired(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to write archive batch of {} readings", batch.size(), e);
+                batch.clear();
+            }
+        }
+        sealExpired(true);
+    }
+
+    private void writeBatch(List<ArchivedReading> batch) throws IOException {
+        long now = System.currentTimeMillis();
+        long trustedUntil = now + properties.sealGrace().toMillis();
+        Map<SegmentKey, List<ArchivedReading>> bySegment = new LinkedHashMap<>();
+        for (ArchivedReading reading : batch) {
+            SegmentKey key = new SegmentKey(reading.warehouseId(),
+                    Math.floorDiv(reading.timestamp(), SegmentFormat.HOUR_MILLIS));
+            bySegment.computeIfAbsent(key, k -> new ArrayList<>()).add(reading);
+            if (reading.timestamp() <= trustedUntil) {
+                newestTimestamps.merge(reading.warehouseId(), reading.timestamp(), Math::max);
+            }
+        }
+        for (Map.Entry<SegmentKey, List<ArchivedReading>> entry : bySegment.entrySet()) {
+            OpenSegment segment = openSegments.get(entry.getKey());
+            if (segment == null) {
+                segment = new OpenSegment(openSegment(entry.getKey()));
+                openSegments.put(entry.getKey(), segment);
+            }
+            try {
+                segment.writer.append(entry.getValue());
+            } catch (IOException e) {
+                // the file may end in a partial block that hides anything appended after it, so later
+                // readings of this hour go to a new part
+                openSegments.remove(entry.getKey());
+                closeQuietly(segment.writer);
+                log.error("Failed to append {} readings to archive segment {}, starting a new part",
+                        entry.getValue().size(), segment.writer.path(), e);
+                continue;
+            }
+            segment.lastWriteMillis = now;
+        }
+    }
+
+    private static void closeQuietly(SegmentWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Failed to close archive segment {}", writer.path(), e);
+        }
+    }
+
+    /** Seals segments whose warehouse has moved on past their hour, or which have gone idle. */
+    private void sealExpired(boolean all) {
+        long grace = properties.sealGrace().toMillis();
+        long idleCutoff = System.currentTimeMillis() - grace;
+        Iterator<Map.Entry<SegmentKey, OpenSegment>> it = openSegments.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<SegmentKey, OpenSegment> entry = it.next();
+            long hourEnd = (entry.getKey().hour() + 1) * SegmentFormat.HOUR_MILLIS;
+            long newest = newestTimestamps.getOrDefault(entry.getKey().warehouseId(), Long.MIN_VALUE);
+            if (!all && newest < hourEnd + grace && entry.getValue().lastWriteMillis > idleCutoff) {
+                continue;
+            }
+            it.remove();
+            try (SegmentWriter writer = entry.getValue().writer) {
+                writer.seal();
+            } catch (IOException e) {
+                log.error("Failed to seal archive segment {}", entry.getValue().writer.path(), e);
+            }
+        }
+    }
+
+    /**
+     * Always starts a new part file, so a late reading for an already sealed hour, or a restart, never
+     * appends to a segment that has a footer.
+     */
+    private SegmentWriter openSegment(SegmentKey key) throws IOException {
+        Path warehouseDir = directory.resolve(SegmentFormat.directoryName(key.warehouseId()));
+        Files.createDirectories(warehouseDir);
+        String prefix = SegmentFormat.fileName(key.hour(), 0);
+        prefix = prefix.substring(0, prefix.indexOf('-') + 1);
+        int part = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(warehouseDir, prefix + "*")) {
+            for (Path path : stream) {
+                part = Math.max(part, SegmentFormat.partOf(path.getFileName().toString()) + 1);
+            }
+        }
+        return new SegmentWriter(warehouseDir.resolve(SegmentFormat.fileName(key.hour(), part)));
+    }
+
+    private record SegmentKey(String warehouseId, long hour) {
+    }
+
+    private static final class OpenSegment {
+        final SegmentWriter writer;
+        long lastWriteMillis;
+
+        OpenSegment(SegmentWriter writer) {
+            this.writer = writer;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.archive;
+
+import com.example.data.SensorData;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * On-disk layout of an archive segment. A segment holds the readings of one warehouse for one hour:
+ * <pre>
+ * header  : int FILE_MAGIC, byte VERSION
+ * block*  : int BLOCK_MAGIC, int rows, long minTs, long maxTs, int rawLength, int compressedLength, deflated columns
+ * footer  : int FOOTER_MAGIC, int blocks, long minTs, long maxTs, int sensors, (type, id, count, min, max)*
+ * trailer : long footerOffset, int TRAILER_MAGIC
+ * </pre>
+ * Each block's columns are a (sensorId, type) dictionary, dictionary indexes per row, zig-zag timestamp
+ * deltas and XOR-ed value bits, all as varints. Footer and trailer are only present once a segment is sealed.
+ */
+final class SegmentFormat {
+    static final int FILE_MAGIC = 0x57484152;    // "WHAR"
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 5;
+    static final int BLOCK_MAGIC = 0x424C4B31;   // "BLK1"
+    static final int BLOCK_HEADER_SIZE = 32;
+    static final int FOOTER_MAGIC = 0x46545231;  // "FTR1"
+    static final int TRAILER_MAGIC = 0x53454731; // "SEG1"
+    static final int TRAILER_SIZE = 12;
+
+    static final long HOUR_MILLIS = 3_600_000L;
+    static final String EXTENSION = ".seg";
+    private static final DateTimeFormatter HOUR_PARSER = DateTimeFormatter.ofPattern("yyyyMMddHH");
+    private static final DateTimeFormatter HOUR_FORMAT = HOUR_PARSER.withZone(ZoneOffset.UTC);
+
+    private SegmentFormat() {
+    }
+
+    static String fileName(long hour, int part) {
+        return HOUR_FORMAT.format(Instant.ofEpochMilli(hour * HOUR_MILLIS)) + "-" + part + EXTENSION;
+    }
+
+    /** Returns the hour bucket encoded in a segment file name, or -1 if the name is not a segment. */
+    static long hourOf(String fileName) {
+        int dash = fileName.indexOf('-');
+        if (dash != 10 || !fileName.endsWith(EXTENSION)) {
+            return -1;
+        }
+        try {
+            return LocalDateTime.parse(fileName.substring(0, dash), HOUR_PARSER)
+                    .toInstant(ZoneOffset.UTC).toEpochMilli() / HOUR_MILLIS;
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    static int partOf(String fileName) {
+        return Integer.parseInt(fileName.substring(fileName.indexOf('-') + 1, fileName.length() - EXTENSION.length()));
+    }
+
+    static String directoryName(String warehouseId) {
+        return warehouseId.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /** Reads a length or count, which can never exceed the bytes left in the buffer. */
+    static int readLength(ByteBuffer in) {
+        long length = readVarLong(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return (int) length;
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[readLength(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static SensorData.SensorType typeOf(int ordinal) {
+        return SensorData.SensorType.values()[ordinal];
+    }
+
+    /** Dictionary key of a block or footer entry. */
+    record SensorKey(String sensorId, SensorData.SensorType type) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.archive;
+
+import com.example.archive.SegmentFormat.SensorKey;
+import com.example.data.SensorData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Memory-mapped reader for a single segment file. Sealed segments are checked against their footer
+ * first; segments still being written are scanned up to the last complete block. A damaged footer or
+ * block is reported as an {@link IOException}.
+ */
+class SegmentReader {
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long blocksEnd;
+    private final Footer footer;
+
+    private SegmentReader(Path path, MappedByteBuffer buffer, long blocksEnd, Footer footer) {
+        this.path = path;
+        this.buffer = buffer;
+        this.blocksEnd = blocksEnd;
+        this.footer = footer;
+    }
+
+    static SegmentReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < SegmentFormat.HEADER_SIZE || buffer.getInt(0) != SegmentFormat.FILE_MAGIC) {
+                throw new IOException("Not an archive segment: " + path);
+            }
+
+            Footer footer = null;
+            long blocksEnd = size;
+            if (size >= SegmentFormat.HEADER_SIZE + SegmentFormat.TRAILER_SIZE
+                    && buffer.getInt((int) size - 4) == SegmentFormat.TRAILER_MAGIC) {
+                long footerOffset = buffer.getLong((int) size - SegmentFormat.TRAILER_SIZE);
+                if (footerOffset < SegmentFormat.HEADER_SIZE || footerOffset > size - SegmentFormat.TRAILER_SIZE) {
+                    throw new IOException("Corrupt segment footer offset " + footerOffset + " in " + path);
+                }
+                try {
+                    footer = Footer.read(buffer.duplicate().position((int) footerOffset));
+                } catch (RuntimeException e) {
+                    throw new IOException("Corrupt segment footer in " + path, e);
+                }
+                blocksEnd = footerOffset;
+            }
+            return new SegmentReader(path, buffer, blocksEnd, footer);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    boolean isSealed() {
+        return footer != null;
+    }
+
+    /** Returns false when the footer proves no reading in this segment can match the query. */
+    boolean mayContain(ArchiveQuery query) {
+        if (footer == null) {
+            return true;
+        }
+        if (footer.rows == 0 || !query.overlapsTime(footer.minTs, footer.maxTs)) {
+            return false;
+        }
+        for (Map.Entry<SensorKey, double[]> entry : footer.ranges.entrySet()) {
+            if ((query.sensorId() == null || query.sensorId().equals(entry.getKey().sensorId()))
+                    && query.overlapsValues(entry.getValue()[0], entry.getValue()[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int scan(ArchiveQuery query, Consumer<ArchivedReading> consumer) throws IOException {
+        if (!mayContain(query)) {
+            return 0;
+        }
+        int matched = 0;
+        int position = SegmentFormat.HEADER_SIZE;
+        Inflater inflater = new Inflater();
+        try {
+            while (position + SegmentFormat.BLOCK_HEADER_SIZE <= blocksEnd) {
+                if (buffer.getInt(position) != SegmentFormat.BLOCK_MAGIC) {
+                    break;
+                }
+                int rows = buffer.getInt(position + 4);
+                long minTs = buffer.getLong(position + 8);
+                long maxTs = buffer.getLong(position + 16);
+                int rawLength = buffer.getInt(position + 24);
+                int compressedLength = buffer.getInt(position + 28);
+                int payload = position + SegmentFormat.BLOCK_HEADER_SIZE;
+                // deflate compresses by at most about 1032:1, every row takes at least three bytes
+                if (compressedLength < 0 || rawLength < 0 || rawLength > compressedLength * 1032L + 64
+                        || rows < 0 || rows > rawLength) {
+                    throw new IOException("Corrupt block header at " + position + " in " + path);
+                }
+                if (payload + (long) compressedLength > blocksEnd) {
+                    break; // block still being written
+                }
+                position = payload + compressedLength;
+                if (!query.overlapsTime(minTs, maxTs)) {
+                    continue;
+                }
+
+                List<ArchivedReading> readings;
+                try {
+                    inflater.reset();
+                    inflater.setInput(buffer.slice(payload, compressedLength));
+                    ByteBuffer raw = ByteBuffer.allocate(rawLength);
+                    inflater.inflate(raw);
+                    readings = decodeBlock(raw.flip(), rows, minTs, query);
+                } catch (DataFormatException | RuntimeException e) {
+                    throw new IOException("Corrupt block in " + path, e);
+                }
+                readings.forEach(consumer);
+                matched += readings.size();
+            }
+        } finally {
+            inflater.end();
+        }
+        return matched;
+    }
+
+    private static List<ArchivedReading> decodeBlock(ByteBuffer raw, int rows, long minTs, ArchiveQuery query) {
+        int dictSize = SegmentFormat.readLength(raw);
+        SensorKey[] dictionary = new SensorKey[dictSize];
+        for (int i = 0; i < dictSize; i++) {
+            SensorData.SensorType type = SegmentFormat.typeOf(raw.get());
+            dictionary[i] = new SensorKey(SegmentFormat.readString(raw), type);
+        }
+        int[] ids = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = (int) SegmentFormat.readVarLong(raw);
+        }
+        long[] timestamps = new long[rows];
+        long ts = minTs;
+        for (int i = 0; i < rows; i++) {
+            ts += SegmentFormat.unZigZag(SegmentFormat.readVarLong(raw));
+            timestamps[i] = ts;
+        }
+
+        List<ArchivedReading> matched = new ArrayList<>();
+        long bits = 0;
+        for (int i = 0; i < rows; i++) {
+            bits ^= Long.reverse(SegmentFormat.readVarLong(raw));
+            SensorKey key = dictionary[ids[i]];
+            ArchivedReading reading = new ArchivedReading(
+                    timestamps[i], query.warehouseId(), key.sensorId(), key.type(), Double.longBitsToDouble(bits));
+            if (query.matches(reading)) {
+                matched.add(reading);
+            }
+        }
+        return matched;
+    }
+
+    private record Footer(int blocks, long rows, long minTs, long maxTs, Map<SensorKey, double[]> ranges) {
+        static Footer read(ByteBuffer in) throws IOException {
+            if (in.getInt() != SegmentFormat.FOOTER_MAGIC) {
+                throw new IOException("Corrupt segment footer");
+            }
+            int blocks = in.getInt();
+            long minTs = in.getLong();
+            long maxTs = in.getLong();
+            int sensors = in.getInt();
+            if (sensors < 0 || sensors > in.remaining()) {
+                throw new IOException("Corrupt segment footer");
+            }
+            long rows = 0;
+            Map<SensorKey, double[]> ranges = new HashMap<>(sensors * 2);
+            for (int i = 0; i < sensors; i++) {
+                SensorData.SensorType type = SegmentFormat.typeOf(in.get());
+                int idLength = in.getInt();
+                if (idLength < 0 || idLength > in.remaining()) {
+                    throw new IOException("Corrupt segment footer");
+                }
+                byte[] id = new byte[idLength];
+                in.get(id);
+                rows += in.getLong();
+                ranges.put(new SensorKey(new String(id, StandardCharsets.UTF_8), type),
+                        new double[]{in.getDouble(), in.getDouble()});
+            }
+            return new Footer(blocks, rows, minTs, maxTs, ranges);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.archive;
+
+import com.example.archive.SegmentFormat.SensorKey;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Append-only writer for a single segment file. Every {@link #append} call writes one self-contained
+ * compressed block, so a segment that was never sealed can still be scanned block by block.
+ */
+class SegmentWriter implements AutoCloseable {
+    private final Path path;
+    private final FileChannel channel;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Map<SensorKey, SensorStats> stats = new LinkedHashMap<>();
+    private int blocks;
+    private long minTs = Long.MAX_VALUE;
+    private long maxTs = Long.MIN_VALUE;
+    private boolean sealed;
+
+    SegmentWriter(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SegmentFormat.HEADER_SIZE)
+                .putInt(SegmentFormat.FILE_MAGIC)
+                .put(SegmentFormat.VERSION)
+                .flip();
+        writeFully(header);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    void append(List<ArchivedReading> readings) throws IOException {
+        if (readings.isEmpty()) {
+            return;
+        }
+        if (sealed) {
+            throw new IllegalStateException("Segment already sealed: " + path);
+        }
+
+        Map<SensorKey, Integer> dictionary = new HashMap<>();
+        ByteArrayOutputStream dict = new ByteArrayOutputStream();
+        ByteArrayOutputStream ids = new ByteArrayOutputStream();
+        ByteArrayOutputStream timestamps = new ByteArrayOutputStream();
+        ByteArrayOutputStream values = new ByteArrayOutputStream();
+
+        long blockMin = Long.MAX_VALUE;
+        long blockMax = Long.MIN_VALUE;
+        for (ArchivedReading reading : readings) {
+            blockMin = Math.min(blockMin, reading.timestamp());
+            blockMax = Math.max(blockMax, reading.timestamp());
+        }
+
+        long previousTs = blockMin;
+        long previousBits = 0;
+        for (ArchivedReading reading : readings) {
+            SensorKey key = new SensorKey(reading.sensorId(), reading.type());
+            Integer index = dictionary.get(key);
+            if (index == null) {
+                index = dictionary.size();
+                dictionary.put(key, index);
+                dict.write(key.type().ordinal());
+                SegmentFormat.writeString(dict, key.sensorId());
+            }
+            SegmentFormat.writeVarLong(ids, index);
+            SegmentFormat.writeVarLong(timestamps, SegmentFormat.zigZag(reading.timestamp() - previousTs));
+            previousTs = reading.timestamp();
+
+            // Sensor values carry few significant mantissa bits, so the XOR with the previous value has a long
+            // run of trailing zeros; reversing it turns that run into leading zeros and keeps the varint short.
+            long bits = Double.doubleToLongBits(reading.value());
+            SegmentFormat.writeVarLong(values, Long.reverse(bits ^ previousBits));
+            previousBits = bits;
+
+            stats.computeIfAbsent(key, k -> new SensorStats()).add(reading.value());
+        }
+
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(
+                dict.size() + ids.size() + timestamps.size() + values.size() + 5);
+        SegmentFormat.writeVarLong(raw, dictionary.size());
+        dict.writeTo(raw);
+        ids.writeTo(raw);
+        timestamps.writeTo(raw);
+        values.writeTo(raw);
+        byte[] compressed = compress(raw.toByteArray());
+
+        ByteBuffer block = ByteBuffer.allocate(SegmentFormat.BLOCK_HEADER_SIZE + compressed.length)
+                .putInt(SegmentFormat.BLOCK_MAGIC)
+                .putInt(readings.size())
+                .putLong(blockMin)
+                .putLong(blockMax)
+                .putInt(raw.size())
+                .putInt(compressed.length)
+                .put(compressed)
+                .flip();
+        writeFully(block);
+
+        blocks++;
+        minTs = Math.min(minTs, blockMin);
+        maxTs = Math.max(maxTs, blockMax);
+    }
+
+    /** Writes the footer with per-sensor min/max so scans can skip this segment without decoding it. */
+    void seal() throws IOException {
+        if (sealed) {
+            return;
+        }
+        long footerOffset = channel.position();
+        ByteArrayOutputStream footer = new ByteArrayOutputStream();
+        for (Map.Entry<SensorKey, SensorStats> entry : stats.entrySet()) {
+            byte[] id = entry.getKey().sensorId().getBytes(StandardCharsets.UTF_8);
+            SensorStats s = entry.getValue();
+            ByteBuffer buf = ByteBuffer.allocate(1 + 4 + id.length + 8 + 8 + 8)
+                    .put((byte) entry.getKey().type().ordinal())
+                    .putInt(id.length)
+                    .put(id)
+                    .putLong(s.count)
+                    .putDouble(s.min)
+                    .putDouble(s.max);
+            footer.write(buf.array(), 0, buf.position());
+        }
+
+        ByteBuffer tail = ByteBuffer.allocate(4 + 4 + 8 + 8 + 4 + footer.size() + SegmentFormat.TRAILER_SIZE)
+                .putInt(SegmentFormat.FOOTER_MAGIC)
+                .putInt(blocks)
+                .putLong(minTs)
+                .putLong(maxTs)
+                .putInt(stats.size())
+                .put(footer.toByteArray())
+                .putLong(footerOffset)
+                .putInt(SegmentFormat.TRAILER_MAGIC)
+                .flip();
+        writeFully(tail);
+        channel.force(true);
+        sealed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        channel.close();
+    }
+
+    private byte[] compress(byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class SensorStats {
+        long count;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        void add(double value) {
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Alarm delivery settings. Queueing, batching, retry and circuit breaking apply to every sink separately.
+ *
+ * @param failureThreshold consecutive failed attempts that open a sink's circuit
+ * @param openDuration     how long an open circuit rejects batches before a trial delivery
+ */
+@ConfigurationProperties(prefix = "monitoring.alarms")
+public record AlarmProperties(
+        int queueCapacity,
+        int maxBatchSize,
+        Duration linger,
+        int maxConcurrency,
+        int maxAttempts,
+        Duration initialBackoff,
+        Duration maxBackoff,
+        int failureThreshold,
+        Duration openDuration,
+        Webhook webhook,
+        File file,
+        Kafka kafka
+) {
+    public record Webhook(boolean enabled, String url, Duration timeout) {}
+
+    public record File(boolean enabled, String path) {}
+
+    public record Kafka(boolean enabled, String topic, Duration timeout) {}
+}
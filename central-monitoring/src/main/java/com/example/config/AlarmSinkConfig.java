@@ -0,0 +1,53 @@
+package com.example.config;
+
+import com.example.alarm.Alarm;
+import com.example.alarm.AlarmSink;
+import com.example.alarm.FileAlarmSink;
+import com.example.alarm.KafkaAlarmSink;
+import com.example.alarm.WebhookAlarmSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class AlarmSinkConfig {
+    // no web starter, so there is no auto-configured ObjectMapper to inject
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Bean
+    @ConditionalOnProperty(prefix = "monitoring.alarms.webhook", name = "enabled", havingValue = "true")
+    public AlarmSink webhookAlarmSink(AlarmProperties properties) {
+        return new WebhookAlarmSink(URI.create(properties.webhook().url()), properties.webhook().timeout(), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "monitoring.alarms.file", name = "enabled", havingValue = "true")
+    public AlarmSink fileAlarmSink(AlarmProperties properties) {
+        return new FileAlarmSink(Paths.get(properties.file().path()), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "monitoring.alarms.kafka", name = "enabled", havingValue = "true")
+    public AlarmSink kafkaAlarmSink(AlarmProperties properties, KafkaProperties kafkaProperties) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.bootstrapServers());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+
+        KafkaSender<String, Alarm> kafkaSender = KafkaSender.create(SenderOptions.create(props));
+        return new KafkaAlarmSink(kafkaSender, properties.kafka().topic(), properties.kafka().timeout());
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "monitoring.archive")
+public record ArchiveProperties(
+        boolean enabled,
+        String directory,
+        int batchSize,
+        int queueCapacity,
+        Duration flushInterval,
+        Duration sealGrace
+) {}
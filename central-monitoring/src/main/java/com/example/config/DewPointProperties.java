@@ -0,0 +1,24 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * @param tolerance maximum time between the paired temperature and humidity readings
+ * @param minSpread  alarm when temperature minus dew point drops to this many degrees or less
+ * @param hysteresis degrees the spread has to rise above {@code minSpread} before a zone can alarm again
+ * @param maxZones   upper bound on tracked zones; the least recently updated zone is evicted beyond it
+ * @param zones      warehouse ID to sensor ID to zone name, since sensor IDs are only unique within a
+ *                   warehouse; unmapped sensors belong to their warehouse's default zone
+ */
+@ConfigurationProperties(prefix = "monitoring.dew-point")
+public record DewPointProperties(
+        boolean enabled,
+        Duration tolerance,
+        double minSpread,
+        double hysteresis,
+        int maxZones,
+        Map<String, Map<String, String>> zones
+) {}
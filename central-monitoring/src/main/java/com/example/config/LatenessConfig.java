@@ -0,0 +1,35 @@
+package com.example.config;
+
+import com.example.data.SensorData;
+import com.example.watermark.KafkaLateReadingSink;
+import com.example.watermark.LateReadingSink;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class LatenessConfig {
+
+    @Bean
+    public LateReadingSink lateReadingSink(LatenessProperties properties, KafkaProperties kafkaProperties) {
+        if (properties.policy() != LatenessProperties.Policy.SIDE_OUTPUT) {
+            return (eventTime, reading) -> {};
+        }
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.bootstrapServers());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+
+        KafkaSender<String, SensorData> kafkaSender = KafkaSender.create(
+                SenderOptions.<String, SensorData>create(props).stopOnError(false));
+        return new KafkaLateReadingSink(kafkaSender, properties.sideOutputTopic(), properties.sideOutputBufferSize());
+    }
+}
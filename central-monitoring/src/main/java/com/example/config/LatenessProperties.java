@@ -0,0 +1,30 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Event-time watermarks per warehouse. The watermark trails the highest event time seen by
+ * {@code maxOutOfOrderness}; readings behind it are late, and readings more than {@code allowedLateness}
+ * behind it are too late to be processed and go to the late reading policy instead.
+ *
+ * @param maxClockSkew     readings dated further ahead of the wall clock than this go to the late reading
+ *                         policy, so a sensor with a wrong clock cannot advance the watermark or pin
+ *                         downstream state to the future
+ * @param sideOutputTopic  topic too-late readings are published to with {@link Policy#SIDE_OUTPUT}
+ */
+@ConfigurationProperties(prefix = "monitoring.lateness")
+public record LatenessProperties(
+        Duration maxOutOfOrderness,
+        Duration allowedLateness,
+        Duration maxClockSkew,
+        Policy policy,
+        String sideOutputTopic,
+        int sideOutputBufferSize
+) {
+    public enum Policy {
+        DISCARD,
+        SIDE_OUTPUT
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "monitoring.sketches")
+public record SketchProperties(
+        Duration window,
+        int retainedWindows,
+        double relativeAccuracy,
+        int maxBuckets,
+        int heavyHitterCapacity,
+        int topK
+) {}
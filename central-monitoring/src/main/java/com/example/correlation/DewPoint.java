@@ -0,0 +1,21 @@
+package com.example.correlation;
+
+/**
+ * Dew point derived from the latest temperature and humidity readings of one warehouse zone.
+ *
+ * @param spread           temperature minus dew point; condensation forms on surfaces as it approaches zero
+ * @param condensationRisk whether the zone is at risk: set once the spread drops to {@code min-spread},
+ *                         cleared only once it rises above {@code min-spread + hysteresis}
+ * @param riskStarted      whether this reading put the zone at risk; only then is an alarm raised
+ */
+public record DewPoint(
+        String warehouseId,
+        String zone,
+        long timestamp,
+        double temperature,
+        double humidity,
+        double dewPoint,
+        double spread,
+        boolean condensationRisk,
+        boolean riskStarted
+) {}
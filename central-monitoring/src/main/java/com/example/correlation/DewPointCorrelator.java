@@ -0,0 +1,124 @@
+package com.example.correlation;
+
+import com.example.config.DewPointProperties;
+import com.example.data.SensorData;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Stream join of temperature and humidity readings per warehouse zone. Only the latest reading of each
+ * type is kept per zone, so every reading is an O(1) state update followed by at most one dew point
+ * computation; nothing is buffered or rescanned.
+ * <p>
+ * Each zone also remembers whether it is at condensation risk, so a spread hovering around
+ * {@code min-spread} raises one alarm rather than one per reading.
+ * <p>
+ * Readings dated more than {@code tolerance} ahead of the wall clock are ignored: a zone keeps only its
+ * latest readings, so a single one from the future would otherwise block every later update.
+ * <p>
+ * Not thread-safe: it is driven by the single Kafka receiver thread.
+ */
+@Service
+public class DewPointCorrelator {
+    private static final String DEFAULT_ZONE = "default";
+    // Magnus formula coefficients over water, valid for -45..60 degrees Celsius
+    private static final double MAGNUS_A = 17.62;
+    private static final double MAGNUS_B = 243.12;
+
+    private final DewPointProperties properties;
+    private final long toleranceMillis;
+    private final Map<String, Map<String, String>> zones;
+    private final Map<ZoneKey, ZoneState> states;
+    private final LongSupplier clock;
+
+    public DewPointCorrelator(DewPointProperties properties) {
+        this(properties, System::currentTimeMillis);
+    }
+
+    DewPointCorrelator(DewPointProperties properties, LongSupplier clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.toleranceMillis = properties.tolerance().toMillis();
+        this.zones = properties.zones() == null ? Map.of() : properties.zones();
+        this.states = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ZoneKey, ZoneState> eldest) {
+                return size() > properties.maxZones();
+            }
+        };
+    }
+
+    /**
+     * Updates the zone of {@code reading} and returns its dew point if the other sensor type of that zone
+     * reported within the configured tolerance, otherwise null.
+     */
+    public DewPoint onReading(long timestamp, SensorData reading) {
+        if (!properties.enabled() || timestamp > clock.getAsLong() + toleranceMillis) {
+            return null;
+        }
+        String zone = zones.getOrDefault(reading.warehouseId(), Map.of())
+                .getOrDefault(reading.sensorId(), DEFAULT_ZONE);
+        ZoneState state = states.computeIfAbsent(new ZoneKey(reading.warehouseId(), zone), k -> new ZoneState());
+        if (!state.update(timestamp, reading)) {
+            return null;
+        }
+        if (state.temperatureTs == Long.MIN_VALUE || state.humidityTs == Long.MIN_VALUE
+                || Math.abs(state.temperatureTs - state.humidityTs) > toleranceMillis) {
+            return null;
+        }
+
+        double dewPoint = dewPoint(state.temperature, state.humidity);
+        double spread = state.temperature - dewPoint;
+        boolean riskStarted = false;
+        if (!state.atRisk && spread <= properties.minSpread()) {
+            state.atRisk = true;
+            riskStarted = true;
+        } else if (state.atRisk && spread > properties.minSpread() + properties.hysteresis()) {
+            state.atRisk = false;
+        }
+        return new DewPoint(reading.warehouseId(), zone, Math.max(state.temperatureTs, state.humidityTs),
+                state.temperature, state.humidity, dewPoint, spread, state.atRisk, riskStarted);
+    }
+
+    public double minSpread() {
+        return properties.minSpread();
+    }
+
+    static double dewPoint(double temperature, double relativeHumidity) {
+        double rh = Math.min(100.0, Math.max(relativeHumidity, 0.01));
+        double gamma = Math.log(rh / 100.0) + MAGNUS_A * temperature / (MAGNUS_B + temperature);
+        return MAGNUS_B * gamma / (MAGNUS_A - gamma);
+    }
+
+    private record ZoneKey(String warehouseId, String zone) {
+    }
+
+    private static final class ZoneState {
+        double temperature;
+        long temperatureTs = Long.MIN_VALUE;
+        double humidity;
+        long humidityTs = Long.MIN_VALUE;
+        boolean atRisk;
+
+        /** Returns false if the reading is older than the one already held and was ignored. */
+        boolean update(long timestamp, SensorData reading) {
+            if (reading.type() == SensorData.SensorType.TEMPERATURE) {
+                if (timestamp < temperatureTs) {
+                    return false;
+                }
+                temperature = reading.value();
+                temperatureTs = timestamp;
+            } else {
+                if (timestamp < humidityTs) {
+                    return false;
+                }
+                humidity = reading.value();
+                humidityTs = timestamp;
+            }
+            return true;
+        }
+    }
+}
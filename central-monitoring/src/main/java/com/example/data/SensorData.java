@@ -1,11 +1,20 @@
 package com.example.data;
 
+/**
+ * @param timestamp event time in epoch milliseconds, or 0 if the warehouse did not send one
+ */
 public record SensorData(
         String warehouseId,
         String sensorId,
         double value,
-        SensorType type
+        SensorType type,
+        long timestamp
 ) {
+    /** A reading without event time, as sent by warehouses that predate it. */
+    public SensorData(String warehouseId, String sensorId, double value, SensorType type) {
+        this(warehouseId, sensorId, value, type, 0L);
+    }
+
     public enum SensorType {
         TEMPERATURE,
         HUMIDITY
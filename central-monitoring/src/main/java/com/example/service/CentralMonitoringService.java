@@ -1,7 +1,14 @@
 package com.example.service;
 
+import com.example.alarm.Alarm;
+import com.example.alarm.AlarmDispatcher;
+import com.example.archive.ReadingArchive;
+import com.example.correlation.DewPoint;
+import com.example.correlation.DewPointCorrelator;
 import com.example.data.SensorData;
 import com.example.config.CentralMonitoringProperties;
+import com.example.sketch.ReadingStatistics;
+import com.example.watermark.WatermarkTracker;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,13 +19,28 @@ import reactor.kafka.receiver.KafkaReceiver;
 public class CentralMonitoringService {
     private final KafkaReceiver<String, SensorData> kafkaReceiver;
     private final CentralMonitoringProperties properties;
+    private final ReadingArchive readingArchive;
+    private final ReadingStatistics readingStatistics;
+    private final DewPointCorrelator dewPointCorrelator;
+    private final AlarmDispatcher alarmDispatcher;
+    private final WatermarkTracker watermarkTracker;
 
     public CentralMonitoringService(
             KafkaReceiver<String, SensorData> kafkaReceiver,
-            CentralMonitoringProperties properties
+            CentralMonitoringProperties properties,
+            ReadingArchive readingArchive,
+            ReadingStatistics readingStatistics,
+            DewPointCorrelator dewPointCorrelator,
+            AlarmDispatcher alarmDispatcher,
+            WatermarkTracker watermarkTracker
     ) {
         this.kafkaReceiver = kafkaReceiver;
         this.properties = properties;
+        this.readingArchive = readingArchive;
+        this.readingStatistics = readingStatistics;
+        this.dewPointCorrelator = dewPointCorrelator;
+        this.alarmDispatcher = alarmDispatcher;
+        this.watermarkTracker = watermarkTracker;
     }
 
     @PostConstruct
@@ -26,22 +48,53 @@ public class CentralMonitoringService {
         kafkaReceiver.receive()
                 .subscribe(record -> {
                     SensorData reading = record.value();
-                    checkThreshold(reading);
+                    // readings from warehouses without event time fall back to the record timestamp
+                    long eventTime = reading.timestamp() > 0 ? reading.timestamp() : record.timestamp();
+                    if (watermarkTracker.admit(eventTime, reading)) {
+                        Alarm threshold = checkThreshold(eventTime, reading);
+                        Alarm condensation = checkDewPoint(eventTime, reading);
+                        readingStatistics.record(eventTime, reading, threshold != null || condensation != null);
+                        readingArchive.append(eventTime, reading);
+                    }
                     record.receiverOffset().acknowledge();
                 });
 
         log.info("Central monitoring service started");
     }
 
-    private void checkThreshold(SensorData reading) {
+    private Alarm checkThreshold(long timestamp, SensorData reading) {
         if (reading.type() == SensorData.SensorType.TEMPERATURE &&
                 reading.value() > properties.temperatureThreshold()) {
-            log.error("ALARM: Temperature threshold exceeded in warehouse {}! Current: {}, Threshold: {}",
-                    reading.warehouseId(), reading.value(), properties.temperatureThreshold());
+            return raise(new Alarm(Alarm.Type.TEMPERATURE_THRESHOLD, reading.warehouseId(), reading.sensorId(),
+                    reading.value(), properties.temperatureThreshold(), timestamp,
+                    String.format("ALARM: Temperature threshold exceeded in warehouse %s! Current: %s, Threshold: %s",
+                            reading.warehouseId(), reading.value(), properties.temperatureThreshold())));
         } else if (reading.type() == SensorData.SensorType.HUMIDITY &&
                 reading.value() > properties.humidityThreshold()) {
-            log.error("ALARM: Humidity threshold exceeded in warehouse {}! Current: {}, Threshold: {}",
-                    reading.warehouseId(), reading.value(), properties.humidityThreshold());
+            return raise(new Alarm(Alarm.Type.HUMIDITY_THRESHOLD, reading.warehouseId(), reading.sensorId(),
+                    reading.value(), properties.humidityThreshold(), timestamp,
+                    String.format("ALARM: Humidity threshold exceeded in warehouse %s! Current: %s, Threshold: %s",
+                            reading.warehouseId(), reading.value(), properties.humidityThreshold())));
         }
+        return null;
+    }
+
+    private Alarm checkDewPoint(long timestamp, SensorData reading) {
+        DewPoint dewPoint = dewPointCorrelator.onReading(timestamp, reading);
+        if (dewPoint == null || !dewPoint.riskStarted()) {
+            return null;
+        }
+        return raise(new Alarm(Alarm.Type.CONDENSATION_RISK, dewPoint.warehouseId(), reading.sensorId(),
+                dewPoint.spread(), dewPointCorrelator.minSpread(), dewPoint.timestamp(),
+                String.format("ALARM: Condensation risk in warehouse %s zone %s! Temperature: %s, Humidity: %s, Dew point: %.1f",
+                        dewPoint.warehouseId(), dewPoint.zone(), dewPoint.temperature(), dewPoint.humidity(),
+                        dewPoint.dewPoint())));
+    }
+
+    /** Logs the alarm and hands it to the dispatcher, which delivers it off the receiver thread. */
+    private Alarm raise(Alarm alarm) {
+        log.error(alarm.message());
+        alarmDispatcher.dispatch(alarm);
+        return alarm;
     }
 }
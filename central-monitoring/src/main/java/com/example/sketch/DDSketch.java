@@ -0,0 +1,261 @@
+package com.example.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Mergeable quantile sketch with relative-error guarantees (DDSketch). Values are mapped to logarithmic
+ * buckets; when the number of buckets exceeds {@code maxBuckets} the lowest ones are collapsed, so memory
+ * stays bounded regardless of the number of values added.
+ */
+public class DDSketch {
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final int maxBuckets;
+    private final double gamma;
+    private final double multiplier;
+    private final Store positive;
+    private final Store negative;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double sum;
+
+    public DDSketch(double relativeAccuracy, int maxBuckets) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be in (0, 1): " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = maxBuckets;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.multiplier = 1 / Math.log(gamma);
+        this.positive = new Store(maxBuckets);
+        this.negative = new Store(maxBuckets);
+    }
+
+    public void add(double value) {
+        if (value > MIN_INDEXABLE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_INDEXABLE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+    }
+
+    public void merge(DDSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different relative accuracy: "
+                    + relativeAccuracy + " vs " + other.relativeAccuracy);
+        }
+        if (other.count == 0) {
+            return;
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+    }
+
+    /** Returns the value at quantile {@code q} within the configured relative accuracy, or NaN if empty. */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+        long seen = 0;
+        // negative values are ordered by descending magnitude
+        for (int i = negative.maxIndex; negative.total > 0 && i >= negative.minIndex; i--) {
+            seen += negative.get(i);
+            if (seen > rank) {
+                return clamp(-value(i));
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = positive.minIndex; positive.total > 0 && i <= positive.maxIndex; i++) {
+            seen += positive.get(i);
+            if (seen > rank) {
+                return clamp(value(i));
+            }
+        }
+        return max;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public DDSketch copy() {
+        DDSketch copy = new DDSketch(relativeAccuracy, maxBuckets);
+        copy.merge(this);
+        return copy;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(relativeAccuracy);
+        out.writeInt(maxBuckets);
+        out.writeLong(count);
+        out.writeLong(zeroCount);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeDouble(sum);
+        positive.writeTo(out);
+        negative.writeTo(out);
+    }
+
+    /**
+     * Reads a sketch written by {@link #writeTo}, which must use the given settings; this bounds what a
+     * sketch received from elsewhere can allocate.
+     */
+    public static DDSketch readFrom(DataInput in, double relativeAccuracy, int maxBuckets) throws IOException {
+        double accuracy = in.readDouble();
+        int buckets = in.readInt();
+        if (accuracy != relativeAccuracy || buckets != maxBuckets) {
+            throw new IllegalArgumentException("Sketch settings " + accuracy + "/" + buckets
+                    + " do not match the local " + relativeAccuracy + "/" + maxBuckets);
+        }
+        DDSketch sketch = new DDSketch(relativeAccuracy, maxBuckets);
+        sketch.count = in.readLong();
+        sketch.zeroCount = in.readLong();
+        sketch.min = in.readDouble();
+        sketch.max = in.readDouble();
+        sketch.sum = in.readDouble();
+        sketch.positive.readFrom(in);
+        sketch.negative.readFrom(in);
+        return sketch;
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) * multiplier);
+    }
+
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /** Dense bucket counts covering [minIndex, maxIndex], grown on demand and capped at maxBuckets. */
+    private static final class Store {
+        private static final long[] EMPTY = new long[0];
+
+        private final int maxBuckets;
+        private long[] bins = EMPTY;
+        private int offset;
+        private int minIndex = Integer.MAX_VALUE;
+        private int maxIndex = Integer.MIN_VALUE;
+        private long total;
+
+        Store(int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+        }
+
+        long get(int index) {
+            return bins[index - offset];
+        }
+
+        void add(int index, long n) {
+            if (index < minIndex || index > maxIndex) {
+                index = extendRange(index);
+            }
+            bins[index - offset] += n;
+            total += n;
+        }
+
+        void merge(Store other) {
+            for (int i = other.minIndex; other.total > 0 && i <= other.maxIndex; i++) {
+                long n = other.get(i);
+                if (n != 0) {
+                    add(i, n);
+                }
+            }
+        }
+
+        /** Extends the covered range to {@code index}, collapsing the lowest buckets if it grows too wide. */
+        private int extendRange(int index) {
+            int newMin = Math.min(minIndex, index);
+            int newMax = Math.max(maxIndex, index);
+            if ((long) newMax - newMin + 1 > maxBuckets) {
+                newMin = newMax - maxBuckets + 1;
+            }
+            int range = newMax - newMin + 1;
+            if (newMin < offset || newMax >= offset + bins.length) {
+                int size = Math.max(range, Math.min(maxBuckets, Math.max(16, bins.length * 2)));
+                int newOffset = newMin - (size - range) / 2;
+                long[] resized = new long[size];
+                for (int i = minIndex; total > 0 && i <= maxIndex; i++) {
+                    resized[Math.max(i, newMin) - newOffset] += bins[i - offset];
+                }
+                bins = resized;
+                offset = newOffset;
+            } else if (total > 0 && newMin > minIndex) {
+                long folded = 0;
+                for (int i = minIndex; i < newMin; i++) {
+                    folded += bins[i - offset];
+                    bins[i - offset] = 0;
+                }
+                bins[newMin - offset] += folded;
+            }
+            minIndex = newMin;
+            maxIndex = newMax;
+            return Math.max(index, newMin);
+        }
+
+        void writeTo(DataOutput out) throws IOException {
+            int nonEmpty = 0;
+            for (int i = minIndex; total > 0 && i <= maxIndex; i++) {
+                if (get(i) != 0) {
+                    nonEmpty++;
+                }
+            }
+            out.writeInt(nonEmpty);
+            for (int i = minIndex; total > 0 && i <= maxIndex; i++) {
+                if (get(i) != 0) {
+                    out.writeInt(i);
+                    out.writeLong(get(i));
+                }
+            }
+        }
+
+        void readFrom(DataInput in) throws IOException {
+            int nonEmpty = in.readInt();
+            if (nonEmpty < 0 || nonEmpty > maxBuckets) {
+                throw new IllegalArgumentException("Invalid bucket count: " + nonEmpty);
+            }
+            for (int i = 0; i < nonEmpty; i++) {
+                add(in.readInt(), in.readLong());
+            }
+        }
+    }
+}
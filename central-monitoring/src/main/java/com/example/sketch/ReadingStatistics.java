@@ -0,0 +1,60 @@
+package com.example.sketch;
+
+import com.example.config.SketchProperties;
+import com.example.data.SensorData;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Constant-memory streaming statistics over the readings seen by this monitoring instance. Updated on the
+ * Kafka receiver thread next to the threshold check; snapshots are copied out under the same lock.
+ */
+@Service
+public class ReadingStatistics {
+    private final SketchProperties properties;
+    private final WindowedSketches sketches;
+    private final AtomicLong lateReadings = new AtomicLong();
+
+    public ReadingStatistics(SketchProperties properties) {
+        this.properties = properties;
+        this.sketches = new WindowedSketches(properties.window().toMillis(), properties.relativeAccuracy(),
+                properties.maxBuckets(), properties.heavyHitterCapacity());
+    }
+
+    public void record(long timestamp, SensorData reading, boolean alarm) {
+        boolean recorded;
+        synchronized (sketches) {
+            recorded = sketches.record(timestamp, reading, alarm, properties.retainedWindows());
+        }
+        if (!recorded) {
+            lateReadings.incrementAndGet();
+        }
+    }
+
+    public WindowedSketches snapshot() {
+        synchronized (sketches) {
+            return sketches.copy();
+        }
+    }
+
+    /** Decodes another instance's export; it must use the same sketch settings as this one. */
+    public WindowedSketches decode(byte[] snapshot) {
+        return sketches.decode(snapshot, properties.retainedWindows());
+    }
+
+    public SketchSummary summarize(int lastWindows) {
+        synchronized (sketches) {
+            return sketches.summarize(lastWindows, properties.topK());
+        }
+    }
+
+    /** Readings dropped because they were older than every retained window. */
+    public long lateReadings() {
+        return lateReadings.get();
+    }
+
+    public int topK() {
+        return properties.topK();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.sketch;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+
+/**
+ * Exposes the reading sketches at {@code /actuator/sketches}:
+ * <ul>
+ *     <li>{@code GET /actuator/sketches?windows=n} - quantiles and heavy hitters over the last n windows</li>
+ *     <li>{@code GET /actuator/sketches/export} - this instance's sketches, base64 encoded</li>
+ *     <li>{@code POST /actuator/sketches} with {@code snapshots} - summary of this instance merged with
+ *     the comma-separated exports of other instances, which must use the same sketch settings</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "sketches")
+public class SketchEndpoint {
+    private static final String EXPORT = "export";
+
+    private final ReadingStatistics statistics;
+
+    public SketchEndpoint(ReadingStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @ReadOperation
+    public SketchSummary summary(@Nullable Integer windows) {
+        return statistics.summarize(lastWindows(windows));
+    }
+
+    @ReadOperation
+    public String export(@Selector String format) {
+        if (!EXPORT.equals(format)) {
+            throw new IllegalArgumentException("Unknown sketch resource: " + format);
+        }
+        return Base64.getEncoder().encodeToString(statistics.snapshot().toBytes());
+    }
+
+    @WriteOperation
+    public SketchSummary merge(String snapshots, @Nullable Integer windows) {
+        WindowedSketches merged = statistics.snapshot();
+        for (String snapshot : snapshots.split(",")) {
+            if (!snapshot.isBlank()) {
+                merged.merge(statistics.decode(Base64.getDecoder().decode(snapshot.trim())));
+            }
+        }
+        return merged.summarize(lastWindows(windows), statistics.topK());
+    }
+
+    private static int lastWindows(@Nullable Integer windows) {
+        if (windows == null) {
+            return Integer.MAX_VALUE;
+        }
+        if (windows < 1) {
+            throw new InvalidEndpointRequestException("windows must be at least 1, was " + windows,
+                    "Invalid windows");
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.sketch;
+
+import com.example.data.SensorData;
+
+import java.time.Instant;
+import java.util.List;
+
+public record SketchSummary(
+        Instant from,
+        Instant to,
+        List<QuantileSummary> quantiles,
+        List<SpaceSaving.HeavyHitter> noisiestSensors,
+        List<SpaceSaving.HeavyHitter> alarmingSensors
+) {
+    public record QuantileSummary(
+            String warehouseId,
+            SensorData.SensorType type,
+            long count,
+            double min,
+            double p50,
+            double p95,
+            double p99,
+            double max
+    ) {}
+}
@@ -0,0 +1,208 @@
+package com.example.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Space-Saving heavy-hitter sketch. Tracks at most {@code capacity} keys; an unseen key replaces the
+ * smallest counter and inherits its count as error bound. Any key whose true count exceeds
+ * {@code total / capacity} is guaranteed to be tracked.
+ * <p>
+ * Counters are also kept in a min-heap on their count, each knowing its heap position, so finding and
+ * replacing the smallest counter takes O(log capacity) instead of a scan over all of them.
+ */
+public class SpaceSaving {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    public void add(String key, long n) {
+        total += n;
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += n;
+            siftDown(counter.position);
+        } else if (counters.size() < capacity) {
+            insert(key, n, 0);
+        } else {
+            Counter min = heap[0];
+            counters.remove(min.key);
+            min.key = key;
+            min.error = min.count;
+            min.count += n;
+            counters.put(key, min);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Merges another sketch into this one. Keys missing from one side are assumed to have that side's
+     * minimum count, which keeps the merged counts an upper bound of the true counts.
+     */
+    public void merge(SpaceSaving other) {
+        long thisMin = minCount();
+        long otherMin = other.minCount();
+        Set<String> keys = new HashSet<>(counters.keySet());
+        keys.addAll(other.counters.keySet());
+
+        List<Map.Entry<String, Counter>> merged = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Counter a = counters.get(key);
+            Counter b = other.counters.get(key);
+            Counter sum = new Counter(key,
+                    (a != null ? a.count : thisMin) + (b != null ? b.count : otherMin),
+                    (a != null ? a.error : thisMin) + (b != null ? b.error : otherMin));
+            merged.add(Map.entry(key, sum));
+        }
+        merged.sort(Comparator.comparingLong((Map.Entry<String, Counter> e) -> e.getValue().count).reversed());
+
+        counters.clear();
+        Arrays.fill(heap, null);
+        for (int i = 0; i < Math.min(capacity, merged.size()); i++) {
+            Counter counter = merged.get(i).getValue();
+            insert(merged.get(i).getKey(), counter.count, counter.error);
+        }
+        total += other.total;
+    }
+
+    public List<HeavyHitter> top(int k) {
+        return counters.entrySet().stream()
+                .map(e -> new HeavyHitter(e.getKey(), e.getValue().count, e.getValue().error))
+                .sorted(Comparator.comparingLong(HeavyHitter::count).reversed())
+                .limit(k)
+                .toList();
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(capacity);
+        out.writeLong(total);
+        out.writeInt(counters.size());
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue().count);
+            out.writeLong(entry.getValue().error);
+        }
+    }
+
+    /**
+     * Reads a sketch written by {@link #writeTo}, which must have the given capacity; this bounds what a
+     * sketch received from elsewhere can allocate.
+     */
+    public static SpaceSaving readFrom(DataInput in, int capacity) throws IOException {
+        int actual = in.readInt();
+        if (actual != capacity) {
+            throw new IllegalArgumentException("Heavy hitter capacity " + actual + " does not match the local "
+                    + capacity);
+        }
+        SpaceSaving sketch = new SpaceSaving(capacity);
+        sketch.total = in.readLong();
+        int size = in.readInt();
+        if (size < 0 || size > capacity) {
+            throw new IllegalArgumentException("Invalid heavy hitter count: " + size);
+        }
+        for (int i = 0; i < size; i++) {
+            String key = in.readUTF();
+            long count = in.readLong();
+            long error = in.readLong();
+            if (sketch.counters.containsKey(key)) {
+                throw new IllegalArgumentException("Duplicate heavy hitter: " + key);
+            }
+            sketch.insert(key, count, error);
+        }
+        return sketch;
+    }
+
+    private long minCount() {
+        return counters.size() < capacity ? 0 : heap[0].count;
+    }
+
+    private void insert(String key, long count, long error) {
+        Counter counter = new Counter(key, count, error);
+        counter.position = counters.size();
+        heap[counter.position] = counter;
+        counters.put(key, counter);
+        siftUp(counter.position);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heap[parent].count <= heap[i].count) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        int size = counters.size();
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && heap[left].count < heap[smallest].count) {
+                smallest = left;
+            }
+            if (right < size && heap[right].count < heap[smallest].count) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Counter counter = heap[i];
+        heap[i] = heap[j];
+        heap[j] = counter;
+        heap[i].position = i;
+        heap[j].position = j;
+    }
+
+    private static final class Counter {
+        String key;
+        long count;
+        long error;
+        int position;
+
+        Counter(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    public record HeavyHitter(String key, long count, long error) {
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.sketch;
+
+import com.example.data.SensorData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Tumbling windows of sketches: one {@link DDSketch} per warehouse and sensor type, plus reading-rate and
+ * alarm-count heavy hitters per sensor. Instances with the same window length can be merged, which is how
+ * summaries from several monitoring instances are combined.
+ */
+public class WindowedSketches {
+    private static final int FORMAT_VERSION = 1;
+
+    private final long windowMillis;
+    private final double relativeAccuracy;
+    private final int maxBuckets;
+    private final int heavyHitterCapacity;
+    private final TreeMap<Long, Window> windows = new TreeMap<>();
+
+    public WindowedSketches(long windowMillis, double relativeAccuracy, int maxBuckets, int heavyHitterCapacity) {
+        this.windowMillis = windowMillis;
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = maxBuckets;
+        this.heavyHitterCapacity = heavyHitterCapacity;
+    }
+
+    /**
+     * Adds a reading to the window containing {@code timestamp}, evicting the oldest windows beyond
+     * {@code retainedWindows}.
+     *
+     * @return false if the reading is older than every retained window and was dropped
+     */
+    public boolean record(long timestamp, SensorData reading, boolean alarm, int retainedWindows) {
+        long start = Math.floorDiv(timestamp, windowMillis) * windowMillis;
+        Window window = windows.get(start);
+        if (window == null) {
+            if (windows.size() >= retainedWindows && start < windows.firstKey()) {
+                return false;
+            }
+            window = new Window();
+            windows.put(start, window);
+            while (windows.size() > retainedWindows) {
+                windows.pollFirstEntry();
+            }
+        }
+        window.quantiles
+                .computeIfAbsent(new QuantileKey(reading.warehouseId(), reading.type()),
+                        k -> new DDSketch(relativeAccuracy, maxBuckets))
+                .add(reading.value());
+        String sensor = reading.warehouseId() + "/" + reading.sensorId();
+        window.readings.add(sensor, 1);
+        if (alarm) {
+            window.alarms.add(sensor, 1);
+        }
+        return true;
+    }
+
+    public void merge(WindowedSketches other) {
+        if (other.windowMillis != windowMillis) {
+            throw new IllegalArgumentException("Cannot merge sketches with different windows: "
+                    + windowMillis + "ms vs " + other.windowMillis + "ms");
+        }
+        for (Map.Entry<Long, Window> entry : other.windows.entrySet()) {
+            windows.computeIfAbsent(entry.getKey(), k -> new Window()).merge(entry.getValue());
+        }
+    }
+
+    public WindowedSketches copy() {
+        WindowedSketches copy = new WindowedSketches(windowMillis, relativeAccuracy, maxBuckets, heavyHitterCapacity);
+        copy.merge(this);
+        return copy;
+    }
+
+    /** Summarizes the most recent {@code lastWindows} windows as if they were a single window. */
+    public SketchSummary summarize(int lastWindows, int topK) {
+        NavigableMap<Long, Window> selected = windows.descendingMap();
+        Window total = new Window();
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        int taken = 0;
+        for (Map.Entry<Long, Window> entry : selected.entrySet()) {
+            if (taken >= lastWindows) {
+                break;
+            }
+            taken++;
+            total.merge(entry.getValue());
+            from = Math.min(from, entry.getKey());
+            to = Math.max(to, entry.getKey() + windowMillis);
+        }
+
+        List<SketchSummary.QuantileSummary> quantiles = new ArrayList<>();
+        for (Map.Entry<QuantileKey, DDSketch> entry : total.quantiles.entrySet()) {
+            DDSketch sketch = entry.getValue();
+            quantiles.add(new SketchSummary.QuantileSummary(
+                    entry.getKey().warehouseId(), entry.getKey().type(), sketch.count(), sketch.min(),
+                    sketch.quantile(0.5), sketch.quantile(0.95), sketch.quantile(0.99), sketch.max()));
+        }
+        quantiles.sort(Comparator.comparing(SketchSummary.QuantileSummary::warehouseId)
+                .thenComparing(SketchSummary.QuantileSummary::type));
+
+        return new SketchSummary(
+                taken == 0 ? null : Instant.ofEpochMilli(from),
+                taken == 0 ? null : Instant.ofEpochMilli(to),
+                quantiles,
+                total.readings.top(topK),
+                total.alarms.top(topK));
+    }
+
+    public int windowCount() {
+        return windows.size();
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(windowMillis);
+            out.writeDouble(relativeAccuracy);
+            out.writeInt(maxBuckets);
+            out.writeInt(heavyHitterCapacity);
+            out.writeInt(windows.size());
+            for (Map.Entry<Long, Window> entry : windows.entrySet()) {
+                out.writeLong(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a snapshot written by {@link #toBytes}. The snapshot must use this instance's window and sketch
+     * settings and hold at most {@code maxWindows} windows, so a snapshot received from another instance
+     * cannot allocate more than a local one.
+     *
+     * @throws IllegalArgumentException if the snapshot is malformed or its settings differ
+     */
+    public WindowedSketches decode(byte[] bytes, int maxWindows) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported sketch format version: " + version);
+            }
+            long window = in.readLong();
+            double accuracy = in.readDouble();
+            int buckets = in.readInt();
+            int capacity = in.readInt();
+            if (window != windowMillis || accuracy != relativeAccuracy || buckets != maxBuckets
+                    || capacity != heavyHitterCapacity) {
+                throw new IllegalArgumentException(String.format(
+                        "Snapshot settings (window %dms, accuracy %s, buckets %d, capacity %d) do not match the "
+                                + "local ones (window %dms, accuracy %s, buckets %d, capacity %d)",
+                        window, accuracy, buckets, capacity,
+                        windowMillis, relativeAccuracy, maxBuckets, heavyHitterCapacity));
+            }
+            int count = in.readInt();
+            if (count < 0 || count > maxWindows) {
+                throw new IllegalArgumentException("Snapshot holds " + count + " windows, at most "
+                        + maxWindows + " are allowed");
+            }
+            WindowedSketches sketches = new WindowedSketches(windowMillis, relativeAccuracy, maxBuckets,
+                    heavyHitterCapacity);
+            for (int i = 0; i < count; i++) {
+                long start = in.readLong();
+                sketches.windows.put(start, sketches.readWindow(in));
+            }
+            return sketches;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed sketch snapshot", e);
+        }
+    }
+
+    private Window readWindow(DataInputStream in) throws IOException {
+        Window window = new Window();
+        int quantiles = in.readInt();
+        for (int i = 0; i < quantiles; i++) {
+            QuantileKey key = new QuantileKey(in.readUTF(), SensorData.SensorType.valueOf(in.readUTF()));
+            window.quantiles.put(key, DDSketch.readFrom(in, relativeAccuracy, maxBuckets));
+        }
+        window.readings = SpaceSaving.readFrom(in, heavyHitterCapacity);
+        window.alarms = SpaceSaving.readFrom(in, heavyHitterCapacity);
+        return window;
+    }
+
+    private record QuantileKey(String warehouseId, SensorData.SensorType type) {
+    }
+
+    private final class Window {
+        final Map<QuantileKey, DDSketch> quantiles = new HashMap<>();
+        SpaceSaving readings = new SpaceSaving(heavyHitterCapacity);
+        SpaceSaving alarms = new SpaceSaving(heavyHitterCapacity);
+
+        void merge(Window other) {
+            for (Map.Entry<QuantileKey, DDSketch> entry : other.quantiles.entrySet()) {
+                DDSketch sketch = quantiles.get(entry.getKey());
+                if (sketch == null) {
+                    quantiles.put(entry.getKey(), entry.getValue().copy());
+                } else {
+                    sketch.merge(entry.getValue());
+                }
+            }
+            readings.merge(other.readings);
+            alarms.merge(other.alarms);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(quantiles.size());
+            for (Map.Entry<QuantileKey, DDSketch> entry : quantiles.entrySet()) {
+                out.writeUTF(entry.getKey().warehouseId());
+                out.writeUTF(entry.getKey().type().name());
+                entry.getValue().writeTo(out);
+            }
+            readings.writeTo(out);
+            alarms.writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.watermark;
+
+import com.example.data.SensorData;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+/**
+ * Side output publishing too-late readings to their own topic, stamped with their event time. Readings
+ * are handed to a bounded buffer drained by a single send pipeline; when it is full they are dropped.
+ */
+@Slf4j
+public class KafkaLateReadingSink implements LateReadingSink {
+    private final KafkaSender<String, SensorData> kafkaSender;
+    private final String topic;
+    private final Sinks.Many<SenderRecord<String, SensorData, Void>> records;
+    private final Disposable pipeline;
+    private long dropped;
+
+    public KafkaLateReadingSink(KafkaSender<String, SensorData> kafkaSender, String topic, int bufferSize) {
+        this.kafkaSender = kafkaSender;
+        this.topic = topic;
+        this.records = Sinks.many().multicast().onBackpressureBuffer(bufferSize, false);
+        this.pipeline = kafkaSender.send(records.asFlux())
+                .subscribe(result -> {
+                    if (result.exception() != null) {
+                        log.warn("Failed to publish late reading to {}: {}", topic, result.exception().toString());
+                    }
+                });
+    }
+
+    @Override
+    public void accept(long eventTime, SensorData reading) {
+        SenderRecord<String, SensorData, Void> record =
+                SenderRecord.create(topic, null, eventTime, reading.sensorId(), reading, null);
+        if (records.tryEmitNext(record).isFailure() && dropped++ % 1000 == 0) {
+            log.warn("Late reading buffer full, {} late readings dropped so far", dropped);
+        }
+    }
+
+    public void close() {
+        records.tryEmitComplete();
+        pipeline.dispose();
+        kafkaSender.close();
+    }
+}
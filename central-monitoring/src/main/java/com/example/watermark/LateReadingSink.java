@@ -0,0 +1,13 @@
+package com.example.watermark;
+
+import com.example.data.SensorData;
+
+/**
+ * Receives readings that arrived too late to be processed, or that are dated too far in the future to be
+ * trusted. Called on the Kafka receiver thread, so
+ * implementations must not block.
+ */
+@FunctionalInterface
+public interface LateReadingSink {
+    void accept(long eventTime, SensorData reading);
+}
@@ -0,0 +1,26 @@
+package com.example.watermark;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Exposes the event-time watermark and late reading counts of every warehouse at
+ * {@code /actuator/watermarks}.
+ */
+@Component
+@Endpoint(id = "watermarks")
+public class WatermarkEndpoint {
+    private final WatermarkTracker tracker;
+
+    public WatermarkEndpoint(WatermarkTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @ReadOperation
+    public List<WatermarkTracker.WarehouseWatermark> watermarks() {
+        return tracker.watermarks();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.watermark;
+
+import com.example.config.LatenessProperties;
+import com.example.data.SensorData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks an event-time watermark per warehouse and decides whether a reading is still processed. A
+ * reading costs one map lookup and a few comparisons; nothing is buffered, so windowed state downstream
+ * only has to cover the allowed lateness behind the watermark, even while a backlog is caught up.
+ * <p>
+ * Updated by the single Kafka receiver thread; {@link #watermarks()} may be read from any thread.
+ */
+@Service
+public class WatermarkTracker {
+    private final long maxOutOfOrderness;
+    private final long allowedLateness;
+    private final long maxClockSkew;
+    private final LateReadingSink lateReadings;
+    private final Map<String, Watermark> watermarks = new ConcurrentHashMap<>();
+    private final Counter late;
+    private final Counter tooLate;
+    private final Counter tooEarly;
+
+    public WatermarkTracker(LatenessProperties properties, LateReadingSink lateReadings, MeterRegistry meterRegistry) {
+        this.maxOutOfOrderness = properties.maxOutOfOrderness().toMillis();
+        this.allowedLateness = properties.allowedLateness().toMillis();
+        this.maxClockSkew = properties.maxClockSkew().toMillis();
+        this.lateReadings = lateReadings;
+        this.late = meterRegistry.counter("monitoring.readings.lateness", "outcome", "late");
+        this.tooLate = meterRegistry.counter("monitoring.readings.lateness", "outcome", "too_late");
+        this.tooEarly = meterRegistry.counter("monitoring.readings.lateness", "outcome", "too_early");
+    }
+
+    /**
+     * Advances the watermark of the reading's warehouse and returns false if the reading is too late, or
+     * dated more than {@code max-clock-skew} ahead of the wall clock, in which case it has been handed to the
+     * late reading sink and must not be processed.
+     */
+    public boolean admit(long eventTime, SensorData reading) {
+        Watermark watermark = watermarks.computeIfAbsent(reading.warehouseId(), id -> new Watermark());
+        if (eventTime > System.currentTimeMillis() + maxClockSkew) {
+            // a sensor with a wrong clock would otherwise pin downstream state to a time that never comes
+            watermark.tooEarly++;
+            tooEarly.increment();
+            lateReadings.accept(eventTime, reading);
+            return false;
+        }
+        if (watermark.maxEventTime != Long.MIN_VALUE) {
+            long behind = watermark.maxEventTime - maxOutOfOrderness - eventTime;
+            if (behind > allowedLateness) {
+                watermark.tooLate++;
+                tooLate.increment();
+                lateReadings.accept(eventTime, reading);
+                return false;
+            }
+            if (behind > 0) {
+                watermark.late++;
+                late.increment();
+            }
+        }
+        if (eventTime > watermark.maxEventTime) {
+            watermark.maxEventTime = eventTime;
+        }
+        return true;
+    }
+
+    public List<WarehouseWatermark> watermarks() {
+        return watermarks.entrySet().stream()
+                .map(e -> e.getValue().snapshot(e.getKey(), maxOutOfOrderness))
+                .sorted(Comparator.comparing(WarehouseWatermark::warehouseId))
+                .toList();
+    }
+
+    /**
+     * @param watermark event time below which readings of the warehouse are late
+     */
+    public record WarehouseWatermark(
+            String warehouseId,
+            long watermark,
+            long maxEventTime,
+            long late,
+            long tooLate,
+            long tooEarly
+    ) {}
+
+    private static final class Watermark {
+        // single writer, volatile for readers of the snapshot
+        volatile long maxEventTime = Long.MIN_VALUE;
+        volatile long late;
+        volatile long tooLate;
+        volatile long tooEarly;
+
+        WarehouseWatermark snapshot(String warehouseId, long maxOutOfOrderness) {
+            long max = maxEventTime;
+            long watermark = max == Long.MIN_VALUE ? Long.MIN_VALUE : max - maxOutOfOrderness;
+            return new WarehouseWatermark(warehouseId, watermark, max, late, tooLate, tooEarly);
+        }
+    }
+}
@@ -1,8 +1,19 @@
 package com.example;
 
+import com.example.alarm.Alarm;
+import com.example.alarm.AlarmDispatcher;
+import com.example.archive.ReadingArchive;
 import com.example.config.CentralMonitoringProperties;
+import com.example.config.LatenessProperties;
+import com.example.correlation.DewPoint;
+import com.example.correlation.DewPointCorrelator;
 import com.example.data.SensorData;
 import com.example.service.CentralMonitoringService;
+import com.example.sketch.ReadingStatistics;
+import com.example.watermark.LateReadingSink;
+import com.example.watermark.WatermarkTracker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,6 +29,8 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.*;
 
@@ -30,6 +43,21 @@ class CentralMonitoringServiceTest {
     @Mock
     private CentralMonitoringProperties properties;
 
+    @Mock
+    private ReadingArchive readingArchive;
+
+    @Mock
+    private ReadingStatistics readingStatistics;
+
+    @Mock
+    private DewPointCorrelator dewPointCorrelator;
+
+    @Mock
+    private AlarmDispatcher alarmDispatcher;
+
+    @Mock
+    private LateReadingSink lateReadingSink;
+
     private CentralMonitoringService monitoringService;
     private ListAppender<ILoggingEvent> logAppender;
 
@@ -41,7 +69,11 @@ class CentralMonitoringServiceTest {
         logAppender.start();
         logger.addAppender(logAppender);
 
-        monitoringService = new CentralMonitoringService(kafkaReceiver, properties);
+        WatermarkTracker watermarkTracker = new WatermarkTracker(new LatenessProperties(
+                Duration.ofSeconds(5), Duration.ofMinutes(1), Duration.ofMinutes(1),
+                LatenessProperties.Policy.DISCARD, "late", 10), lateReadingSink, new SimpleMeterRegistry());
+        monitoringService = new CentralMonitoringService(kafkaReceiver, properties, readingArchive,
+                readingStatistics, dewPointCorrelator, alarmDispatcher, watermarkTracker);
     }
 
     @Test
@@ -85,6 +117,10 @@ class CentralMonitoringServiceTest {
                 ));
 
         verify(record.receiverOffset()).acknowledge();
+        verify(readingArchive).append(record.timestamp(), record.value());
+        verify(readingStatistics).record(record.timestamp(), record.value(), true);
+        verify(alarmDispatcher).dispatch(argThat(alarm ->
+                alarm.type() == Alarm.Type.TEMPERATURE_THRESHOLD && alarm.sensorId().equals(sensorId)));
     }
 
     @Test
@@ -137,10 +173,38 @@ class CentralMonitoringServiceTest {
         assertThat(logAppender.list)
                 .filteredOn(event -> event.getLevel() == Level.ERROR)
                 .isEmpty();
+        verify(readingStatistics).record(record.timestamp(), record.value(), false);
+        verifyNoInteractions(alarmDispatcher);
 
         verify(record.receiverOffset()).acknowledge();
     }
 
+    @Test
+    void shouldTriggerCondensationAlarmWhenDewPointIsClose() {
+        // Arrange
+        String warehouseId = "WH-001";
+        SensorData humidity = new SensorData(warehouseId, "h1", 45.0, SensorData.SensorType.HUMIDITY);
+
+        when(properties.humidityThreshold()).thenReturn(60.0);
+        ReceiverRecord<String, SensorData> record = createMockRecord(humidity);
+        when(dewPointCorrelator.onReading(record.timestamp(), humidity)).thenReturn(
+                new DewPoint(warehouseId, "default", 0L, 20.0, 90.0, 18.3, 1.7, true, true));
+        when(kafkaReceiver.receive()).thenReturn(Flux.just(record));
+
+        // Act
+        monitoringService.start();
+
+        // Assert
+        assertThat(logAppender.list)
+                .filteredOn(event -> event.getLevel() == Level.ERROR)
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly(String.format(
+                        "ALARM: Condensation risk in warehouse %s zone default! Temperature: 20.0, Humidity: 90.0, Dew point: %.1f",
+                        warehouseId, 18.3));
+        verify(readingStatistics).record(record.timestamp(), humidity, true);
+        verify(alarmDispatcher).dispatch(argThat(alarm -> alarm.type() == Alarm.Type.CONDENSATION_RISK));
+    }
+
     private ReceiverRecord<String, SensorData> createMockRecord(SensorData sensorData) {
         ReceiverRecord<String, SensorData> record = mock(ReceiverRecord.class);
         ReceiverOffset offset = mock(ReceiverOffset.class);
@@ -150,4 +214,40 @@ class CentralMonitoringServiceTest {
 
         return record;
     }
+
+    @Test
+    void shouldUseEventTimeAndDivertTooLateReadings() {
+        long now = System.currentTimeMillis();
+        SensorData fresh = new SensorData("WH-001", "t1", 20.0, SensorData.SensorType.TEMPERATURE, now);
+        SensorData stale = new SensorData("WH-001", "t1", 40.0, SensorData.SensorType.TEMPERATURE, now - 120_000);
+        ReceiverRecord<String, SensorData> freshRecord = createMockRecord(fresh);
+        ReceiverRecord<String, SensorData> staleRecord = createMockRecord(stale);
+        when(properties.temperatureThreshold()).thenReturn(30.0);
+        when(kafkaReceiver.receive()).thenReturn(Flux.just(freshRecord, staleRecord));
+
+        monitoringService.start();
+
+        verify(readingArchive).append(now, fresh);
+        verify(readingStatistics).record(now, fresh, false);
+        verify(lateReadingSink).accept(now - 120_000, stale);
+        verifyNoMoreInteractions(readingArchive, readingStatistics);
+        verifyNoInteractions(alarmDispatcher);
+        verify(staleRecord.receiverOffset()).acknowledge();
+    }
+
+    @Test
+    void shouldDeserializeReadingsWithAndWithoutEventTime() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        SensorData legacy = objectMapper.readValue(
+                "{\"warehouseId\":\"WH-001\",\"sensorId\":\"t1\",\"value\":20.0,\"type\":\"TEMPERATURE\"}",
+                SensorData.class);
+        SensorData stamped = objectMapper.readValue(
+                "{\"warehouseId\":\"WH-001\",\"sensorId\":\"t1\",\"value\":20.0,\"type\":\"TEMPERATURE\","
+                        + "\"timestamp\":1700000000000}",
+                SensorData.class);
+
+        assertThat(legacy.timestamp()).isZero();
+        assertThat(stamped.timestamp()).isEqualTo(1_700_000_000_000L);
+    }
 }
@@ -0,0 +1,193 @@
+package com.example.alarm;
+
+import com.example.config.AlarmProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class AlarmDispatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AlarmDispatcher dispatcher;
+    private HttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldBatchAlarmsToWebhook() throws Exception {
+        List<Alarm[]> batches = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/alarms", exchange -> {
+            batches.add(objectMapper.readValue(exchange.getRequestBody(), Alarm[].class));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        URI url = URI.create("http://localhost:" + server.getAddress().getPort() + "/alarms");
+
+        dispatcher = start(properties(3, 5), new WebhookAlarmSink(url, Duration.ofSeconds(2), objectMapper));
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch(alarm("t" + i));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> batches.stream().mapToInt(b -> b.length).sum() == 5);
+        assertThat(batches).allSatisfy(batch -> assertThat(batch.length).isLessThanOrEqualTo(3));
+        assertThat(batches.get(0)[0].sensorId()).isEqualTo("t0");
+        assertThat(dispatcher.stats().get(0).delivered()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldNotBlockCallerOnSlowSinkAndDropOverflow() {
+        CountDownLatch release = new CountDownLatch(1);
+        AlarmSink stuck = sink("stuck", batch -> release.await());
+        dispatcher = start(properties(1, 5), stuck);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(alarm("t" + i));
+        }
+        long elapsed = System.nanoTime() - started;
+        release.countDown();
+
+        assertThat(elapsed).isLessThan(TimeUnit.SECONDS.toNanos(1));
+        assertThat(dispatcher.stats().get(0).dropped()).isPositive();
+    }
+
+    @Test
+    void shouldRetryFailedDeliveries() {
+        AtomicInteger attempts = new AtomicInteger();
+        dispatcher = start(properties(10, 5), sink("flaky", batch -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("unavailable");
+            }
+        }));
+
+        dispatcher.dispatch(alarm("t1"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> dispatcher.stats().get(0).delivered() == 1);
+        assertThat(attempts).hasValue(3);
+        assertThat(dispatcher.stats().get(0).circuit()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void shouldKeepAlarmsQueuedWhileCircuitIsOpen() {
+        AtomicInteger attempts = new AtomicInteger();
+        dispatcher = start(properties(1, 3), sink("dead", batch -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("unavailable");
+        }));
+
+        dispatcher.dispatch(alarm("t1"));
+        dispatcher.dispatch(alarm("t2"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> {
+            AlarmDispatcher.SinkStats stats = dispatcher.stats().get(0);
+            return stats.failed() == 1 && stats.queued() == 1;
+        });
+        AlarmDispatcher.SinkStats stats = dispatcher.stats().get(0);
+        assertThat(stats.circuit()).isEqualTo("OPEN");
+        assertThat(stats.dropped()).isZero();
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void shouldDeliverQueuedAlarmsOnceCircuitCloses() {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        dispatcher = start(properties(1, 2, Duration.ofMillis(200)), sink("recovering", batch -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("unavailable");
+            }
+            batch.forEach(alarm -> delivered.add(alarm.sensorId()));
+        }));
+
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch(alarm("t" + i));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> delivered.size() == 5);
+        AlarmDispatcher.SinkStats stats = dispatcher.stats().get(0);
+        assertThat(delivered).containsExactly("t0", "t1", "t2", "t3", "t4");
+        assertThat(stats.failed()).isZero();
+        assertThat(stats.dropped()).isZero();
+        assertThat(stats.circuit()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void shouldAppendJsonLinesToFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("alarms/alarms.jsonl");
+        FileAlarmSink sink = new FileAlarmSink(file, objectMapper);
+
+        sink.deliver(List.of(alarm("t1"), alarm("t2")));
+        sink.deliver(List.of(alarm("t3")));
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readValue(lines.get(2), Alarm.class).sensorId()).isEqualTo("t3");
+    }
+
+    private AlarmDispatcher start(AlarmProperties properties, AlarmSink sink) {
+        AlarmDispatcher started = new AlarmDispatcher(properties, List.of(sink));
+        started.start();
+        return started;
+    }
+
+    // maxAttempts 3, failureThreshold as given, a single in-flight batch so ordering is deterministic
+    private static AlarmProperties properties(int maxBatchSize, int failureThreshold) {
+        return properties(maxBatchSize, failureThreshold, Duration.ofMinutes(1));
+    }
+
+    private static AlarmProperties properties(int maxBatchSize, int failureThreshold, Duration openDuration) {
+        return new AlarmProperties(10, maxBatchSize, Duration.ofMillis(50), 1, 3,
+                Duration.ofMillis(10), Duration.ofMillis(50), failureThreshold, openDuration,
+                null, null, null);
+    }
+
+    private static Alarm alarm(String sensorId) {
+        return new Alarm(Alarm.Type.TEMPERATURE_THRESHOLD, "WH-001", sensorId, 40.0, 35.0,
+                System.currentTimeMillis(), "ALARM: Temperature threshold exceeded");
+    }
+
+    private static AlarmSink sink(String name, Delivery delivery) {
+        return new AlarmSink() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void deliver(List<Alarm> alarms) throws Exception {
+                delivery.deliver(alarms);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Delivery {
+        void deliver(List<Alarm> alarms) throws Exception;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.archive;
+
+import com.example.config.ArchiveProperties;
+import com.example.data.SensorData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class ReadingArchiveTest {
+    private static final long HOUR = 3_600_000L;
+    private static final long BASE = 1_700_000_000_000L / HOUR * HOUR;
+
+    @TempDir
+    Path directory;
+
+    private ReadingArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        archive = start(Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        archive.shutdown();
+    }
+
+    @Test
+    void shouldRoundTripReadingsThroughSealedSegments() throws IOException {
+        List<ArchivedReading> written = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long ts = BASE + i * 20_000L; // spans three hours
+            SensorData.SensorType type = i % 2 == 0 ? SensorData.SensorType.TEMPERATURE : SensorData.SensorType.HUMIDITY;
+            SensorData reading = new SensorData("WH-001", "s" + (i % 7), 20.0 + (i % 13) * 0.5, type);
+            archive.append(ts, reading);
+            written.add(new ArchivedReading(ts, "WH-001", reading.sensorId(), type, reading.value()));
+        }
+        archive.shutdown();
+
+        List<ArchivedReading> read = new ArrayList<>();
+        archive.scan(ArchiveQuery.timeRange("WH-001", BASE, BASE + 3 * HOUR), read::add);
+
+        assertThat(read).containsExactlyInAnyOrderElementsOf(written);
+        try (Stream<Path> files = Files.list(directory.resolve("WH-001"))) {
+            assertThat(files.map(p -> p.getFileName().toString()))
+                    .hasSize(3)
+                    .allMatch(name -> name.endsWith("-0.seg"));
+        }
+    }
+
+    @Test
+    void shouldKeepOneSegmentPerHourWhileCatchingUpOnOldReadings() throws Exception {
+        for (int batch = 0; batch < 5; batch++) {
+            archive.append(BASE + batch * 1_000L, new SensorData("WH-001", "t1", 20.0, SensorData.SensorType.TEMPERATURE));
+            Thread.sleep(60); // longer than the flush interval, so every reading is its own batch
+        }
+        archive.append(BASE + HOUR + 10 * 60_000L, new SensorData("WH-001", "t1", 21.0, SensorData.SensorType.TEMPERATURE));
+
+        Path first = directory.resolve("WH-001").resolve(SegmentFormat.fileName(BASE / HOUR, 0));
+        await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(first) && SegmentReader.open(first).isSealed());
+        try (Stream<Path> files = Files.list(directory.resolve("WH-001"))) {
+            assertThat(files.map(p -> p.getFileName().toString()))
+                    .containsExactlyInAnyOrder(SegmentFormat.fileName(BASE / HOUR, 0),
+                            SegmentFormat.fileName(BASE / HOUR + 1, 0));
+        }
+        assertThat(SegmentReader.open(first).scan(ArchiveQuery.timeRange("WH-001", BASE, BASE + HOUR), r -> { }))
+                .isEqualTo(5);
+    }
+
+    @Test
+    void shouldNotLetFutureDatedReadingsSealOpenSegments() throws Exception {
+        long future = System.currentTimeMillis() + 365 * 24 * HOUR;
+        archive.append(future, new SensorData("WH-001", "t9", 20.0, SensorData.SensorType.TEMPERATURE));
+        for (int batch = 0; batch < 3; batch++) {
+            Thread.sleep(60);
+            archive.append(BASE + batch * 1_000L, new SensorData("WH-001", "t1", 20.0, SensorData.SensorType.TEMPERATURE));
+        }
+        archive.shutdown();
+
+        try (Stream<Path> files = Files.list(directory.resolve("WH-001"))) {
+            assertThat(files.map(p -> p.getFileName().toString()))
+                    .containsExactlyInAnyOrder(SegmentFormat.fileName(BASE / HOUR, 0),
+                            SegmentFormat.fileName(Math.floorDiv(future, HOUR), 0));
+        }
+    }
+
+    @Test
+    void shouldSealSegmentsThatStopReceivingReadings() {
+        archive.shutdown();
+        archive = start(Duration.ofMillis(100));
+        archive.append(BASE, new SensorData("WH-001", "t1", 20.0, SensorData.SensorType.TEMPERATURE));
+
+        Path segment = directory.resolve("WH-001").resolve(SegmentFormat.fileName(BASE / HOUR, 0));
+        await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(segment) && SegmentReader.open(segment).isSealed());
+    }
+
+    @Test
+    void shouldFilterBySensorTimeAndValueRange() {
+        archive.append(BASE, new SensorData("WH-001", "t1", 20.0, SensorData.SensorType.TEMPERATURE));
+        archive.append(BASE + 1_000, new SensorData("WH-001", "t1", 40.0, SensorData.SensorType.TEMPERATURE));
+        archive.append(BASE + 2_000, new SensorData("WH-001", "t2", 45.0, SensorData.SensorType.TEMPERATURE));
+        archive.append(BASE + HOUR, new SensorData("WH-001", "t1", 41.0, SensorData.SensorType.TEMPERATURE));
+        archive.shutdown();
+
+        List<ArchivedReading> hot = new ArrayList<>();
+        archive.scan(ArchiveQuery.timeRange("WH-001", BASE, BASE + HOUR)
+                .withSensor("t1")
+                .withValueRange(35.0, Double.POSITIVE_INFINITY), hot::add);
+
+        assertThat(hot).extracting(ArchivedReading::value).containsExactly(40.0);
+        assertThat(archive.scan(ArchiveQuery.timeRange("WH-002", BASE, BASE + HOUR), r -> { })).isZero();
+    }
+
+    @Test
+    void shouldSkipSealedSegmentsWhoseFooterExcludesTheQuery() throws IOException {
+        archive.append(BASE, new SensorData("WH-001", "t1", 20.0, SensorData.SensorType.TEMPERATURE));
+        archive.shutdown();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory.resolve("WH-001"))) {
+            segment = files.findFirst().orElseThrow();
+        }
+        SegmentReader reader = SegmentReader.open(segment);
+
+        assertThat(reader.isSealed()).isTrue();
+        assertThat(reader.mayContain(ArchiveQuery.timeRange("WH-001", BASE, BASE + HOUR).withSensor("t2"))).isFalse();
+        assertThat(reader.mayContain(ArchiveQuery.timeRange("WH-001", BASE, BASE + HOUR)
+                .withValueRange(30.0, 50.0))).isFalse();
+        assertThat(reader.mayContain(ArchiveQuery.timeRange("WH-001", BASE, BASE + HOUR).withSensor("t1"))).isTrue();
+    }
+
+    @Test
+    void shouldSkipSegmentsWithCorruptFooter() throws IOException {
+        archive.append(BASE, new SensorData("WH-001", "t1", 20.0, SensorData.SensorType.TEMPERATURE));
+        archive.append(BASE + HOUR, new SensorData("WH-001", "t1", 21.0, SensorData.SensorType.TEMPERATURE));
+        archive.shutdown();
+
+        Path damaged = directory.resolve("WH-001").resolve(SegmentFormat.fileName(BASE / HOUR, 0));
+        try (FileChannel channel = FileChannel.open(damaged, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putLong(Long.MAX_VALUE).flip(),
+                    channel.size() - SegmentFormat.TRAILER_SIZE);
+        }
+
+        List<ArchivedReading> read = new ArrayList<>();
+        archive.scan(ArchiveQuery.timeRange("WH-001", BASE, BASE + 2 * HOUR), read::add);
+
+        assertThat(read).extracting(ArchivedReading::value).containsExactly(21.0);
+    }
+
+    @Test
+    void shouldScanUnsealedSegmentBlockByBlock() throws IOException {
+        Path segment = directory.resolve("open.seg");
+        try (SegmentWriter writer = new SegmentWriter(segment)) {
+            writer.append(List.of(new ArchivedReading(BASE, "WH-001", "h1", SensorData.SensorType.HUMIDITY, 55.0)));
+            writer.append(List.of(new ArchivedReading(BASE + 5, "WH-001", "h1", SensorData.SensorType.HUMIDITY, 56.5)));
+        }
+        // simulate a crash in the middle of writing the next block
+        Files.write(segment, new byte[]{0x42, 0x4C, 0x4B, 0x31, 0, 0}, StandardOpenOption.APPEND);
+
+        List<ArchivedReading> read = new ArrayList<>();
+        SegmentReader reader = SegmentReader.open(segment);
+        reader.scan(ArchiveQuery.timeRange("WH-001", BASE, BASE + HOUR), read::add);
+
+        assertThat(reader.isSealed()).isFalse();
+        assertThat(read).extracting(ArchivedReading::value).containsExactly(55.0, 56.5);
+    }
+
+    private ReadingArchive start(Duration sealGrace) {
+        ReadingArchive started = new ReadingArchive(new ArchiveProperties(
+                true, directory.toString(), 100, 10_000, Duration.ofMillis(20), sealGrace));
+        started.start();
+        return started;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.correlation;
+
+import com.example.config.DewPointProperties;
+import com.example.data.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DewPointCorrelatorTest {
+
+    private final DewPointCorrelator correlator = new DewPointCorrelator(new DewPointProperties(
+            true, Duration.ofSeconds(30), 2.0, 1.0, 2,
+            Map.of("WH-001", Map.of("t1", "zone-a", "h1", "zone-a"))));
+
+    @Test
+    void shouldComputeDewPointUsingMagnusFormula() {
+        assertThat(DewPointCorrelator.dewPoint(20.0, 50.0)).isCloseTo(9.3, within(0.1));
+        assertThat(DewPointCorrelator.dewPoint(25.0, 100.0)).isCloseTo(25.0, within(0.01));
+    }
+
+    @Test
+    void shouldPairLatestReadingsOfTheSameZoneWithinTolerance() {
+        assertThat(correlator.onReading(1_000, temperature("t1", 20.0))).isNull();
+
+        DewPoint dewPoint = correlator.onReading(11_000, humidity("h1", 90.0));
+
+        assertThat(dewPoint).isNotNull();
+        assertThat(dewPoint.zone()).isEqualTo("zone-a");
+        assertThat(dewPoint.timestamp()).isEqualTo(11_000);
+        assertThat(dewPoint.spread()).isCloseTo(1.6, within(0.1));
+        assertThat(dewPoint.condensationRisk()).isTrue();
+        assertThat(dewPoint.riskStarted()).isTrue();
+
+        DewPoint drier = correlator.onReading(12_000, humidity("h1", 50.0));
+        assertThat(drier.condensationRisk()).isFalse();
+    }
+
+    @Test
+    void shouldRaiseRiskOnceUntilSpreadClearsTheHysteresisMargin() {
+        correlator.onReading(0, temperature("t1", 20.0));
+
+        // spreads of about 1.6, 1.6, 2.4 and 2.7 degrees stay within min-spread 2.0 plus hysteresis 1.0
+        assertThat(correlator.onReading(1_000, humidity("h1", 90.0)).riskStarted()).isTrue();
+        assertThat(correlator.onReading(2_000, humidity("h1", 90.0)).riskStarted()).isFalse();
+        DewPoint hovering = correlator.onReading(3_000, humidity("h1", 86.0));
+        assertThat(hovering.condensationRisk()).isTrue();
+        assertThat(hovering.riskStarted()).isFalse();
+        assertThat(correlator.onReading(4_000, humidity("h1", 84.5)).riskStarted()).isFalse();
+
+        // spread of about 4.7 degrees clears the risk, the next drop alarms again
+        assertThat(correlator.onReading(5_000, humidity("h1", 75.0)).condensationRisk()).isFalse();
+        assertThat(correlator.onReading(6_000, humidity("h1", 90.0)).riskStarted()).isTrue();
+    }
+
+    @Test
+    void shouldNotPairReadingsOutsideToleranceOrFromOtherZones() {
+        correlator.onReading(0, temperature("t1", 20.0));
+
+        assertThat(correlator.onReading(31_000, humidity("h1", 90.0))).isNull();
+        assertThat(correlator.onReading(1_000, humidity("h2", 90.0))).isNull();
+        assertThat(correlator.onReading(0, new SensorData("WH-002", "h1", 90.0, SensorData.SensorType.HUMIDITY)))
+                .isNull();
+    }
+
+    @Test
+    void shouldMapSensorsToZonesPerWarehouse() {
+        correlator.onReading(0, new SensorData("WH-002", "t1", 20.0, SensorData.SensorType.TEMPERATURE));
+
+        DewPoint other = correlator.onReading(1_000, new SensorData("WH-002", "h2", 90.0, SensorData.SensorType.HUMIDITY));
+
+        // t1 is only mapped to zone-a in WH-001, in WH-002 it shares the default zone with h2
+        assertThat(other.warehouseId()).isEqualTo("WH-002");
+        assertThat(other.zone()).isEqualTo("default");
+    }
+
+    @Test
+    void shouldIgnoreOutOfOrderReadingsAndEvictLeastRecentZone() {
+        correlator.onReading(10_000, temperature("t1", 20.0));
+        assertThat(correlator.onReading(5_000, temperature("t1", 30.0))).isNull();
+        assertThat(correlator.onReading(10_000, humidity("h1", 50.0)).temperature()).isEqualTo(20.0);
+
+        // two more zones push zone-a out of the bounded state
+        correlator.onReading(10_000, temperature("t2", 20.0));
+        correlator.onReading(10_000, new SensorData("WH-002", "t1", 20.0, SensorData.SensorType.TEMPERATURE));
+
+        assertThat(correlator.onReading(10_000, humidity("h1", 50.0))).isNull();
+    }
+
+    @Test
+    void shouldIgnoreReadingsDatedBeyondToleranceAheadOfTheClock() {
+        DewPointCorrelator clocked = new DewPointCorrelator(new DewPointProperties(
+                true, Duration.ofSeconds(30), 2.0, 1.0, 2, Map.of()), () -> 100_000L);
+
+        assertThat(clocked.onReading(100_000 + 3_600_000, temperature("t1", 35.0))).isNull();
+        assertThat(clocked.onReading(90_000, temperature("t1", 20.0))).isNull();
+
+        // the future reading was not kept, so the zone still pairs and uses the real temperature
+        DewPoint dewPoint = clocked.onReading(100_000, humidity("h1", 50.0));
+        assertThat(dewPoint).isNotNull();
+        assertThat(dewPoint.temperature()).isEqualTo(20.0);
+    }
+
+    private static SensorData temperature(String sensorId, double value) {
+        return new SensorData("WH-001", sensorId, value, SensorData.SensorType.TEMPERATURE);
+    }
+
+    private static SensorData humidity(String sensorId, double value) {
+        return new SensorData("WH-001", sensorId, value, SensorData.SensorType.HUMIDITY);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.sketch;
+
+import com.example.config.SketchProperties;
+import com.example.data.SensorData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = SketchEndpointTest.Config.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SketchEndpointTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private ReadingStatistics statistics;
+
+    @Test
+    void shouldServeAndMergeSketchesOverHttp() {
+        long now = System.currentTimeMillis();
+        statistics.record(now, new SensorData("WH-001", "t1", 20.0, SensorData.SensorType.TEMPERATURE), false);
+
+        String export = rest.getForObject("/actuator/sketches/export", String.class);
+        ResponseEntity<SketchSummary> merged = rest.postForEntity("/actuator/sketches",
+                Map.of("snapshots", export), SketchSummary.class);
+
+        assertThat(merged.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(merged.getBody().quantiles()).singleElement()
+                .satisfies(q -> assertThat(q.count()).isEqualTo(2));
+        assertThat(rest.getForObject("/actuator/sketches", SketchSummary.class).quantiles()).singleElement()
+                .satisfies(q -> assertThat(q.count()).isEqualTo(1));
+    }
+
+    @Test
+    void shouldRejectFewerThanOneWindow() {
+        assertThat(rest.getForEntity("/actuator/sketches?windows=0", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = KafkaAutoConfiguration.class)
+    @EnableConfigurationProperties(SketchProperties.class)
+    @Import({ReadingStatistics.class, SketchEndpoint.class})
+    static class Config {
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.sketch;
+
+import com.example.data.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class WindowedSketchesTest {
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void ddSketchQuantilesStayWithinRelativeAccuracy() {
+        DDSketch sketch = new DDSketch(0.01, 2048);
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = -20 + random.nextDouble() * 70; // -20..50 degrees
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.05, 0.5, 0.95, 0.99}) {
+            double exact = values[(int) (q * (values.length - 1))];
+            assertThat(sketch.quantile(q)).isCloseTo(exact, within(Math.abs(exact) * 0.01 + 1e-9));
+        }
+        assertThat(sketch.count()).isEqualTo(values.length);
+    }
+
+    @Test
+    void ddSketchMergeEqualsSketchOfUnion() {
+        DDSketch left = new DDSketch(0.01, 2048);
+        DDSketch right = new DDSketch(0.01, 2048);
+        DDSketch all = new DDSketch(0.01, 2048);
+        for (int i = 1; i <= 1000; i++) {
+            (i % 2 == 0 ? left : right).add(i * 0.1);
+            all.add(i * 0.1);
+        }
+        left.merge(right);
+
+        assertThat(left.quantile(0.5)).isEqualTo(all.quantile(0.5));
+        assertThat(left.quantile(0.99)).isEqualTo(all.quantile(0.99));
+        assertThatThrownBy(() -> left.merge(new DDSketch(0.05, 2048)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void ddSketchCollapsesLowestBucketsWhenBounded() {
+        DDSketch sketch = new DDSketch(0.01, 64);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(1e-6 * Math.pow(1.01, i % 2000));
+        }
+
+        assertThat(sketch.count()).isEqualTo(10_000);
+        assertThat(sketch.quantile(1.0)).isCloseTo(sketch.max(), within(sketch.max() * 0.01));
+    }
+
+    @Test
+    void spaceSavingFindsHeavyHittersAndMerges() {
+        SpaceSaving left = new SpaceSaving(10);
+        SpaceSaving right = new SpaceSaving(10);
+        for (int i = 0; i < 10_000; i++) {
+            left.add(i % 3 == 0 ? "noisy" : "s" + i, 1);
+            right.add(i % 5 == 0 ? "noisy" : "r" + i, 1);
+        }
+
+        assertThat(left.top(1).get(0).key()).isEqualTo("noisy");
+        left.merge(right);
+        SpaceSaving.HeavyHitter top = left.top(1).get(0);
+        assertThat(top.key()).isEqualTo("noisy");
+        assertThat(top.count()).isGreaterThanOrEqualTo(3334 + 2000);
+        assertThat(left.total()).isEqualTo(20_000);
+    }
+
+    @Test
+    void spaceSavingAlwaysReplacesTheSmallestCounter() {
+        SpaceSaving sketch = new SpaceSaving(20);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            String key = random.nextInt(4) == 0 ? "hot" + random.nextInt(5) : "cold" + random.nextInt(500);
+            sketch.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        List<SpaceSaving.HeavyHitter> tracked = sketch.top(20);
+        assertThat(tracked).extracting(SpaceSaving.HeavyHitter::count).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(tracked.subList(0, 5)).extracting(SpaceSaving.HeavyHitter::key)
+                .containsExactlyInAnyOrder("hot0", "hot1", "hot2", "hot3", "hot4");
+        assertThat(tracked).allSatisfy(hitter -> {
+            assertThat(hitter.error()).isLessThanOrEqualTo(sketch.total() / 20);
+            assertThat(exact.get(hitter.key())).isBetween(hitter.count() - hitter.error(), hitter.count());
+        });
+    }
+
+    @Test
+    void shouldSummarizeRetainedWindowsAndDropTooOldReadings() {
+        WindowedSketches sketches = new WindowedSketches(MINUTE, 0.01, 2048, 50);
+        for (int minute = 0; minute < 5; minute++) {
+            for (int i = 0; i < 100; i++) {
+                sketches.record(minute * MINUTE + i, temperature("t" + (i % 4), 20 + i % 10), i % 4 == 0, 3);
+            }
+        }
+
+        assertThat(sketches.windowCount()).isEqualTo(3);
+        assertThat(sketches.record(0, temperature("t1", 20), false, 3)).isFalse();
+
+        SketchSummary latest = sketches.summarize(1, 2);
+        assertThat(latest.quantiles()).singleElement().satisfies(q -> {
+            assertThat(q.count()).isEqualTo(100);
+            assertThat(q.p50()).isCloseTo(24.0, within(0.3));
+        });
+        assertThat(latest.alarmingSensors()).extracting(SpaceSaving.HeavyHitter::key).containsExactly("WH-001/t0");
+        assertThat(sketches.summarize(Integer.MAX_VALUE, 2).quantiles().get(0).count()).isEqualTo(300);
+
+        SketchSummary none = sketches.summarize(0, 2);
+        assertThat(none.from()).isNull();
+        assertThat(none.to()).isNull();
+        assertThat(none.quantiles()).isEmpty();
+    }
+
+    @Test
+    void shouldMergeSerializedSnapshotsFromOtherInstances() {
+        WindowedSketches local = new WindowedSketches(MINUTE, 0.01, 2048, 50);
+        WindowedSketches remote = new WindowedSketches(MINUTE, 0.01, 2048, 50);
+        for (int i = 0; i < 100; i++) {
+            local.record(i, temperature("t1", 10), false, 10);
+            remote.record(i, temperature("t2", 30), true, 10);
+        }
+
+        local.merge(local.decode(remote.toBytes(), 10));
+        SketchSummary summary = local.summarize(Integer.MAX_VALUE, 5);
+
+        assertThat(summary.quantiles()).singleElement().satisfies(q -> {
+            assertThat(q.count()).isEqualTo(200);
+            assertThat(q.min()).isEqualTo(10.0);
+            assertThat(q.max()).isEqualTo(30.0);
+        });
+        assertThat(summary.noisiestSensors()).hasSize(2);
+        assertThat(summary.alarmingSensors()).extracting(SpaceSaving.HeavyHitter::key).containsExactly("WH-001/t2");
+    }
+
+    @Test
+    void shouldRejectSnapshotsThatDoNotMatchTheLocalSettings() {
+        WindowedSketches local = new WindowedSketches(MINUTE, 0.01, 2048, 50);
+        WindowedSketches oversized = new WindowedSketches(MINUTE, 0.01, 2048, 500);
+        WindowedSketches remote = new WindowedSketches(MINUTE, 0.01, 2048, 50);
+        for (int i = 0; i < 3; i++) {
+            oversized.record(i * MINUTE, temperature("t1", 10), false, 10);
+            remote.record(i * MINUTE, temperature("t1", 10), false, 10);
+        }
+
+        assertThatThrownBy(() -> local.decode(oversized.toBytes(), 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("capacity 500");
+        assertThatThrownBy(() -> local.decode(remote.toBytes(), 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("3 windows");
+        assertThatThrownBy(() -> local.decode(new byte[] {0, 0, 0, 1, 0}, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SensorData temperature(String sensorId, double value) {
+        return new SensorData("WH-001", sensorId, value, SensorData.SensorType.TEMPERATURE);
+    }
+}
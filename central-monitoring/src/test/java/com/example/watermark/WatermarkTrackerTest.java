@@ -0,0 +1,83 @@
+package com.example.watermark;
+
+import com.example.config.LatenessProperties;
+import com.example.data.SensorData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class WatermarkTrackerTest {
+    private final long now = System.currentTimeMillis();
+    private final List<SensorData> tooLate = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WatermarkTracker tracker = new WatermarkTracker(new LatenessProperties(
+            Duration.ofSeconds(5), Duration.ofSeconds(10), Duration.ofMinutes(1),
+            LatenessProperties.Policy.DISCARD, "late", 10),
+            (eventTime, reading) -> tooLate.add(reading), meterRegistry);
+
+    @Test
+    void shouldAdmitOutOfOrderReadingsWithinAllowedLateness() {
+        assertThat(tracker.admit(now, reading("WH-001", now))).isTrue();
+        // within the out-of-orderness bound: on time
+        assertThat(tracker.admit(now - 4_000, reading("WH-001", now - 4_000))).isTrue();
+        // behind the watermark but within the allowed lateness: late, still processed
+        assertThat(tracker.admit(now - 14_000, reading("WH-001", now - 14_000))).isTrue();
+
+        assertThat(tracker.watermarks()).extracting(WatermarkTracker.WarehouseWatermark::watermark,
+                        WatermarkTracker.WarehouseWatermark::late, WatermarkTracker.WarehouseWatermark::tooLate)
+                .containsExactly(tuple(now - 5_000, 1L, 0L));
+        assertThat(tooLate).isEmpty();
+    }
+
+    @Test
+    void shouldDivertTooLateReadingsToLateReadingSink() {
+        tracker.admit(now, reading("WH-001", now));
+        SensorData stale = reading("WH-001", now - 16_000);
+
+        assertThat(tracker.admit(now - 16_000, stale)).isFalse();
+
+        assertThat(tooLate).containsExactly(stale);
+        assertThat(meterRegistry.counter("monitoring.readings.lateness", "outcome", "too_late").count())
+                .isEqualTo(1.0);
+        // the watermark did not move back
+        assertThat(tracker.watermarks().get(0).maxEventTime()).isEqualTo(now);
+    }
+
+    @Test
+    void shouldTrackWatermarksPerWarehouse() {
+        tracker.admit(now, reading("WH-002", now));
+        tracker.admit(now - 60_000, reading("WH-001", now - 60_000));
+
+        // far behind WH-002, but WH-001 has its own watermark
+        assertThat(tracker.admit(now - 61_000, reading("WH-001", now - 61_000))).isTrue();
+        assertThat(tracker.watermarks()).extracting(WatermarkTracker.WarehouseWatermark::warehouseId,
+                        WatermarkTracker.WarehouseWatermark::maxEventTime)
+                .containsExactly(tuple("WH-001", now - 60_000), tuple("WH-002", now));
+    }
+
+    @Test
+    void shouldDivertReadingsBeyondClockSkewToLateReadingSink() {
+        long future = now + Duration.ofHours(1).toMillis();
+        SensorData skewed = reading("WH-001", future);
+
+        assertThat(tracker.admit(future, skewed)).isFalse();
+        assertThat(tracker.admit(now, reading("WH-001", now))).isTrue();
+
+        assertThat(tooLate).containsExactly(skewed);
+        assertThat(meterRegistry.counter("monitoring.readings.lateness", "outcome", "too_early").count())
+                .isEqualTo(1.0);
+        assertThat(tracker.watermarks()).extracting(WatermarkTracker.WarehouseWatermark::maxEventTime,
+                        WatermarkTracker.WarehouseWatermark::tooEarly)
+                .containsExactly(tuple(now, 1L));
+    }
+
+    private static SensorData reading(String warehouseId, long timestamp) {
+        return new SensorData(warehouseId, "t1", 20.0, SensorData.SensorType.TEMPERATURE, timestamp);
+    }
+}
@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Time-to-first-packet-accepted benchmark for the warehouse service.
+#
+# Starts the service, sends a temperature datagram every 5 ms from the moment the JVM is launched and
+# reports how long it took until the first one was accepted. Kafka does not need to be running: readings
+# are buffered until the sender is ready, which is exactly the window this measures.
+#
+# Usage: bench/time-to-first-packet.sh [default|edge] [runs]
+#   default  fat jar built with `mvn package`
+#   edge     plain jar built with `mvn package -Pedge`; the CDS archive is created on the first run
+set -euo pipefail
+
+mode=${1:-default}
+runs=${2:-5}
+port=${BENCH_PORT:-3344}
+module=$(cd "$(dirname "$0")/.." && pwd)
+jar=$(ls "$module"/target/warehouse-*.jar | head -n 1)
+archive="$module/target/warehouse.jsa"
+
+case "$mode" in
+  default)
+    cmd=(java -jar "$jar")
+    ;;
+  edge)
+    if [[ ! -d "$module/target/lib" ]]; then
+      echo "edge mode needs the jar built with: mvn package -Pedge" >&2
+      exit 1
+    fi
+    edge_flags=(-Dspring.aot.enabled=true -Dspring.profiles.active=edge)
+    if [[ ! -f "$archive" ]]; then
+      echo "Creating CDS archive $archive"
+      java -XX:ArchiveClassesAtExit="$archive" "${edge_flags[@]}" -Dspring.context.exit=onRefresh \
+        -jar "$jar" > /dev/null 2>&1
+    fi
+    cmd=(java -XX:SharedArchiveFile="$archive" "${edge_flags[@]}" -jar "$jar")
+    ;;
+  *)
+    echo "Unknown mode: $mode" >&2
+    exit 1
+    ;;
+esac
+
+log=$(mktemp)
+trap 'rm -f "$log"' EXIT
+results=()
+
+for ((run = 1; run <= runs; run++)); do
+  : > "$log"
+  start=$(date +%s%N)
+  "${cmd[@]}" --warehouse.temperature-port="$port" > "$log" 2>&1 &
+  pid=$!
+
+  until grep -q "First datagram accepted on port $port" "$log"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "Service exited before accepting a datagram:" >&2
+      cat "$log" >&2
+      exit 1
+    fi
+    printf 'sensor_id=bench; value=20' > "/dev/udp/127.0.0.1/$port" 2> /dev/null || true
+    sleep 0.005
+  done
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+  jvm=$(grep -o "First datagram accepted on port $port [0-9]* ms" "$log" | grep -o "[0-9]* ms$")
+
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  results+=("$elapsed")
+  echo "run $run: first datagram accepted after $elapsed ms (JVM uptime $jvm)"
+done
+
+sorted=($(printf '%s\n' "${results[@]}" | sort -n))
+echo "$mode: min ${sorted[0]} ms, median ${sorted[$(( runs / 2 ))]} ms, max ${sorted[$(( runs - 1 ))]} ms"
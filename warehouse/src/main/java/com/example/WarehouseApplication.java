@@ -1,12 +1,16 @@
 package com.example;
 
+import com.example.config.AdmissionProperties;
+import com.example.config.StartupProperties;
+import com.example.config.TCPServerProperties;
 import com.example.config.WarehouseProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
-@EnableConfigurationProperties(WarehouseProperties.class)
+@EnableConfigurationProperties({WarehouseProperties.class, AdmissionProperties.class, StartupProperties.class,
+        TCPServerProperties.class})
 public class WarehouseApplication {
     public static void main(String[] args) {
         SpringApplication.run(WarehouseApplication.class, args);
@@ -0,0 +1,189 @@
+package com.example.admission;
+
+import com.example.config.AdmissionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-source and per-sensor token bucket admission for one UDP server. Decisions are taken on the raw
+ * datagram bytes, before any String decoding: the source key comes from the sender address and the
+ * sensor key is a hash of the first {@code key=value} field.
+ * <p>
+ * Confined to the event loop of the server's channel, like the Netty handler that calls it.
+ */
+public class AdmissionControl {
+    private static final long NO_KEY = 0;
+    private static final int MAX_NAMES = 4096;
+    private static final String SOURCE = "source";
+    private static final String SENSOR = "sensor";
+
+    private final AdmissionProperties properties;
+    private final TokenBucketTable sources;
+    private final TokenBucketTable sensors;
+    private final Map<Long, String> sourceNames = boundedNames();
+    private final Map<Long, String> sensorNames = boundedNames();
+    private final Counter sourceDropped;
+    private final Counter sourceSampled;
+    private final Counter sensorDropped;
+    private final Counter sensorSampled;
+    private final Counter untracked;
+
+    public AdmissionControl(AdmissionProperties properties, MeterRegistry registry, int port) {
+        this.properties = properties;
+        long ttlNanos = properties.idleTtl().toNanos();
+        this.sources = new TokenBucketTable(properties.sourceRate(), properties.sourceBurst(),
+                properties.sampleEvery(), properties.maxEntries(), ttlNanos);
+        this.sensors = new TokenBucketTable(properties.sensorRate(), properties.sensorBurst(),
+                properties.sampleEvery(), properties.maxEntries(), ttlNanos);
+        this.sourceDropped = counter(registry, port, SOURCE, "dropped");
+        this.sourceSampled = counter(registry, port, SOURCE, "sampled");
+        this.sensorDropped = counter(registry, port, SENSOR, "dropped");
+        this.sensorSampled = counter(registry, port, SENSOR, "sampled");
+        this.untracked = counter(registry, port, "table", "untracked");
+    }
+
+    public Duration sweepInterval() {
+        return properties.idleTtl();
+    }
+
+    public boolean admit(InetSocketAddress sender, ByteBuf content, long nowNanos) {
+        long sourceKey = sourceKey(sender.getAddress());
+        TokenBucketTable.Decision decision = sources.acquire(sourceKey, nowNanos);
+        if (!record(decision, sourceDropped, sourceSampled)) {
+            if (decision == TokenBucketTable.Decision.FIRST_DROP) {
+                sourceNames.put(sourceKey, sender.getAddress().getHostAddress());
+            }
+            return false;
+        }
+
+        long sensorKey = sensorKey(content);
+        if (sensorKey == NO_KEY) {
+            return true;
+        }
+        decision = sensors.acquire(sensorKey, nowNanos);
+        if (!record(decision, sensorDropped, sensorSampled)) {
+            if (decision == TokenBucketTable.Decision.FIRST_DROP) {
+                sensorNames.put(sensorKey, sensorId(content));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    public void sweep(long nowNanos) {
+        sources.sweep(nowNanos);
+        sensors.sweep(nowNanos);
+    }
+
+    public List<Offender> offenders(long nowNanos) {
+        List<Offender> offenders = new ArrayList<>();
+        for (TokenBucketTable.Entry entry : sources.offenders(nowNanos, properties.maxOffenders())) {
+            offenders.add(offender(SOURCE, sourceNames, entry, nowNanos));
+        }
+        for (TokenBucketTable.Entry entry : sensors.offenders(nowNanos, properties.maxOffenders())) {
+            offenders.add(offender(SENSOR, sensorNames, entry, nowNanos));
+        }
+        offenders.sort(Comparator.comparingLong(Offender::dropped).reversed());
+        return offenders.size() > properties.maxOffenders() ? offenders.subList(0, properties.maxOffenders()) : offenders;
+    }
+
+    private boolean record(TokenBucketTable.Decision decision, Counter dropped, Counter sampled) {
+        switch (decision) {
+            case UNTRACKED -> untracked.increment();
+            case SAMPLE -> sampled.increment();
+            case DROP, FIRST_DROP -> dropped.increment();
+            default -> {
+            }
+        }
+        return decision.admitted();
+    }
+
+    /** IPv4 addresses map one-to-one; IPv6 addresses fall back to their hash in a separate key range. */
+    static long sourceKey(InetAddress address) {
+        long hash = address.hashCode() & 0xFFFFFFFFL;
+        return address instanceof Inet4Address ? hash | (1L << 32) : hash | (2L << 32);
+    }
+
+    /** FNV-1a hash of the trimmed value of the first {@code key=value} field, or {@link #NO_KEY}. */
+    static long sensorKey(ByteBuf content) {
+        long bounds = sensorIdBounds(content);
+        if (bounds < 0) {
+            return NO_KEY;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = (int) (bounds >>> 32); i < (int) bounds; i++) {
+            hash ^= content.getByte(i) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash == NO_KEY ? 1 : hash;
+    }
+
+    static String sensorId(ByteBuf content) {
+        long bounds = sensorIdBounds(content);
+        if (bounds < 0) {
+            return "";
+        }
+        int start = (int) (bounds >>> 32);
+        return content.toString(start, (int) bounds - start, StandardCharsets.UTF_8);
+    }
+
+    /** Start and end index of the sensor ID packed into one long, or -1 if there is none. */
+    private static long sensorIdBounds(ByteBuf content) {
+        int end = content.writerIndex();
+        int equals = content.indexOf(content.readerIndex(), end, (byte) '=');
+        if (equals < 0) {
+            return -1;
+        }
+        int stop = content.indexOf(equals + 1, end, (byte) ';');
+        if (stop < 0) {
+            stop = end;
+        }
+        int start = equals + 1;
+        while (start < stop && isWhitespace(content.getByte(start))) {
+            start++;
+        }
+        while (stop > start && isWhitespace(content.getByte(stop - 1))) {
+            stop--;
+        }
+        return start == stop ? -1 : (long) start << 32 | stop;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static Offender offender(String limit, Map<Long, String> names, TokenBucketTable.Entry entry, long nowNanos) {
+        return new Offender(limit, names.getOrDefault(entry.key(), Long.toHexString(entry.key())),
+                entry.dropped(), entry.sampled(), Duration.ofNanos(nowNanos - entry.lastSeenNanos()));
+    }
+
+    private static Counter counter(MeterRegistry registry, int port, String limit, String outcome) {
+        return Counter.builder("warehouse.udp.admission")
+                .description("Datagrams over a rate limit, by limit and outcome")
+                .tag("port", String.valueOf(port))
+                .tag("limit", limit)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Map<Long, String> boundedNames() {
+        return new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > MAX_NAMES;
+            }
+        };
+    }
+}
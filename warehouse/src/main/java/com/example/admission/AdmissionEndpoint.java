@@ -0,0 +1,31 @@
+package com.example.admission;
+
+import com.example.service.UDPServer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Lists the sources and sensors currently over their rate limit, per UDP server, at
+ * {@code /actuator/udpoffenders}.
+ */
+@Component
+@Endpoint(id = "udpoffenders")
+public class AdmissionEndpoint {
+    private final Map<String, UDPServer> servers;
+
+    public AdmissionEndpoint(Map<String, UDPServer> servers) {
+        this.servers = servers;
+    }
+
+    @ReadOperation
+    public Map<String, List<Offender>> offenders() {
+        Map<String, List<Offender>> offenders = new TreeMap<>();
+        servers.forEach((name, server) -> offenders.put(name, server.offenders()));
+        return offenders;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.admission;
+
+import java.time.Duration;
+
+/**
+ * A source address or sensor that exceeded its rate limit.
+ *
+ * @param limit   {@code source} or {@code sensor}
+ * @param sampled datagrams over the limit that were still admitted by sampling
+ */
+public record Offender(
+        String limit,
+        String id,
+        long dropped,
+        long sampled,
+        Duration idle
+) {}
@@ -0,0 +1,198 @@
+package com.example.admission;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Open-addressing table of token buckets keyed by a primitive {@code long}. All state lives in parallel
+ * arrays sized once at construction, so admission allocates nothing per datagram. Buckets idle for longer
+ * than the TTL are treated as free slots and purged by {@link #sweep}; an idle bucket would have been full
+ * again anyway, so forgetting it does not change any decision.
+ * <p>
+ * Not thread-safe: each table is confined to the event loop of the channel it guards.
+ */
+class TokenBucketTable {
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final long FORCED_SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final double ratePerNano;
+    private final double burst;
+    private final int sampleEvery;
+    private final long ttlNanos;
+    private final int mask;
+    private final int maxEntries;
+
+    private final byte[] states;
+    private final long[] keys;
+    private final long[] lastSeen;
+    private final double[] tokens;
+    private final long[] excess;
+    private final long[] dropped;
+    private int size;
+    private boolean forcedSweep;
+    private long lastForcedSweep;
+
+    TokenBucketTable(double ratePerSecond, double burst, int sampleEvery, int maxEntries, long ttlNanos) {
+        this.ratePerNano = ratePerSecond / 1e9;
+        this.burst = burst;
+        this.sampleEvery = sampleEvery;
+        this.ttlNanos = ttlNanos;
+        this.maxEntries = maxEntries;
+        int capacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+        this.mask = capacity - 1;
+        this.states = new byte[capacity];
+        this.keys = new long[capacity];
+        this.lastSeen = new long[capacity];
+        this.tokens = new double[capacity];
+        this.excess = new long[capacity];
+        this.dropped = new long[capacity];
+    }
+
+    /**
+     * Takes one token from the bucket of {@code key}.
+     *
+     * @return {@link Decision#ADMIT} if a token was available, {@link Decision#SAMPLE} if the datagram is over
+     * the limit but picked by sampling, {@link Decision#DROP} otherwise
+     */
+    Decision acquire(long key, long nowNanos) {
+        int slot = find(key, nowNanos);
+        if (slot < 0 && (!forcedSweep || nowNanos - lastForcedSweep > FORCED_SWEEP_INTERVAL_NANOS)) {
+            // full: purge expired buckets outside this key's probe chain, at most once a second
+            forcedSweep = true;
+            lastForcedSweep = nowNanos;
+            sweep(nowNanos);
+            slot = find(key, nowNanos);
+        }
+        if (slot < 0) {
+            return Decision.UNTRACKED;
+        }
+        double available = Math.min(burst, tokens[slot] + (nowNanos - lastSeen[slot]) * ratePerNano);
+        lastSeen[slot] = nowNanos;
+        if (available >= 1) {
+            tokens[slot] = available - 1;
+            return Decision.ADMIT;
+        }
+        tokens[slot] = available;
+        excess[slot]++;
+        if (sampleEvery > 0 && excess[slot] % sampleEvery == 0) {
+            return Decision.SAMPLE;
+        }
+        dropped[slot]++;
+        return dropped[slot] == 1 ? Decision.FIRST_DROP : Decision.DROP;
+    }
+
+    /**
+     * Removes expired buckets in place. Each removal shifts the rest of its probe chain back into the freed
+     * slot (backward-shift deletion), which keeps chains short without tombstones or a second table.
+     */
+    void sweep(long nowNanos) {
+        // the table is at most half full, so there is an empty slot, and no probe chain wraps past it
+        int start = 0;
+        while (states[start] != EMPTY) {
+            start++;
+        }
+        for (int n = 1; n <= mask; n++) {
+            int slot = (start + n) & mask;
+            // an entry shifted into the freed slot may itself be expired
+            while (states[slot] == USED && expired(lastSeen[slot], nowNanos)) {
+                remove(slot);
+            }
+        }
+    }
+
+    /** Live buckets that dropped at least one datagram, most dropped first. */
+    List<Entry> offenders(long nowNanos, int limit) {
+        List<Entry> offenders = new ArrayList<>();
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == USED && dropped[i] > 0 && !expired(lastSeen[i], nowNanos)) {
+                offenders.add(new Entry(keys[i], dropped[i], excess[i] - dropped[i], lastSeen[i]));
+            }
+        }
+        offenders.sort(Comparator.comparingLong(Entry::dropped).reversed());
+        return offenders.size() > limit ? offenders.subList(0, limit) : offenders;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int find(long key, long nowNanos) {
+        int reusable = -1;
+        int slot = hash(key) & mask;
+        for (int probes = 0; probes <= mask; probes++, slot = (slot + 1) & mask) {
+            if (states[slot] == EMPTY) {
+                break;
+            }
+            if (keys[slot] == key) {
+                if (expired(lastSeen[slot], nowNanos)) {
+                    reset(slot, key, nowNanos);
+                }
+                return slot;
+            }
+            if (reusable < 0 && expired(lastSeen[slot], nowNanos)) {
+                reusable = slot;
+            }
+        }
+        if (reusable >= 0) {
+            reset(reusable, key, nowNanos);
+            return reusable;
+        }
+        if (size >= maxEntries || states[slot] != EMPTY) {
+            return -1;
+        }
+        states[slot] = USED;
+        size++;
+        reset(slot, key, nowNanos);
+        return slot;
+    }
+
+    private void reset(int slot, long key, long nowNanos) {
+        keys[slot] = key;
+        lastSeen[slot] = nowNanos;
+        tokens[slot] = burst;
+        excess[slot] = 0;
+        dropped[slot] = 0;
+    }
+
+    private void remove(int slot) {
+        int hole = slot;
+        for (int next = (hole + 1) & mask; states[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            // the entry may fill the hole unless its home slot lies after the hole in the chain
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                lastSeen[hole] = lastSeen[next];
+                tokens[hole] = tokens[next];
+                excess[hole] = excess[next];
+                dropped[hole] = dropped[next];
+                hole = next;
+            }
+        }
+        states[hole] = EMPTY;
+        size--;
+    }
+
+    private boolean expired(long seen, long nowNanos) {
+        return nowNanos - seen > ttlNanos;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    enum Decision {
+        ADMIT, UNTRACKED, SAMPLE, FIRST_DROP, DROP;
+
+        boolean admitted() {
+            return this == ADMIT || this == UNTRACKED || this == SAMPLE;
+        }
+    }
+
+    record Entry(long key, long dropped, long sampled, long lastSeenNanos) {
+    }
+}
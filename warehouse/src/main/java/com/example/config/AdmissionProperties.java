@@ -0,0 +1,25 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Token bucket limits applied by every UDP server before a datagram is decoded.
+ *
+ * @param sampleEvery admit every n-th datagram over the limit; 0 drops all of them
+ * @param maxEntries  buckets tracked per limit and server; datagrams from sources beyond it are admitted
+ * @param idleTtl     buckets idle for this long are forgotten, so it should exceed burst / rate
+ */
+@ConfigurationProperties(prefix = "warehouse.admission")
+public record AdmissionProperties(
+        boolean enabled,
+        double sourceRate,
+        double sourceBurst,
+        double sensorRate,
+        double sensorBurst,
+        int sampleEvery,
+        int maxEntries,
+        Duration idleTtl,
+        int maxOffenders
+) {}
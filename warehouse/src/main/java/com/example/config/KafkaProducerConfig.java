@@ -29,7 +29,10 @@ public class KafkaProducerConfig {
         props.put(ProducerConfig.ACKS_CONFIG, "all");
         props.put(ProducerConfig.RETRIES_CONFIG, 3);
 
-        SenderOptions<String, SensorData> senderOptions = SenderOptions.create(props);
+        // report failed records in their results instead of terminating the pipeline, so TCP frames can be
+        // acknowledged as failed
+        SenderOptions<String, SensorData> senderOptions = SenderOptions.<String, SensorData>create(props)
+                .stopOnError(false);
         return KafkaSender.create(senderOptions);
     }
 
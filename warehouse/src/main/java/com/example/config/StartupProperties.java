@@ -0,0 +1,18 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the window between binding the UDP ports and the Kafka sender becoming ready.
+ *
+ * @param bufferSize        readings held per UDP port until the Kafka pipeline subscribes; later ones are dropped
+ * @param readinessBackoff  first delay between attempts to fetch the topic metadata, doubled up to the maximum
+ */
+@ConfigurationProperties(prefix = "warehouse.startup")
+public record StartupProperties(
+        int bufferSize,
+        Duration readinessBackoff,
+        Duration readinessMaxBackoff
+) {}
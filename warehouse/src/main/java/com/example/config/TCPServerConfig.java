@@ -0,0 +1,17 @@
+package com.example.config;
+
+import com.example.service.TCPServer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TCPServerConfig {
+
+    @Bean(name = "tcpServer")
+    @ConditionalOnProperty(prefix = "warehouse.tcp", name = "enabled", havingValue = "true")
+    public TCPServer tcpServer(TCPServerProperties properties) {
+        return new TCPServer(properties.port(), properties.maxFrameLength(),
+                properties.maxReadingsPerFrame(), properties.highWatermark(), properties.lowWatermark());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bulk ingestion over TCP for sensor gateways.
+ *
+ * @param maxFrameLength      frames longer than this close the connection
+ * @param maxReadingsPerFrame frames with more readings are rejected; at most {@code highWatermark}
+ * @param highWatermark       readings in flight at which reads from all gateways are paused
+ * @param lowWatermark        readings in flight at which reads are resumed
+ */
+@ConfigurationProperties(prefix = "warehouse.tcp")
+public record TCPServerProperties(
+        boolean enabled,
+        int port,
+        int maxFrameLength,
+        int maxReadingsPerFrame,
+        int highWatermark,
+        int lowWatermark
+) {}
@@ -1,6 +1,8 @@
 package com.example.config;
 
+import com.example.admission.AdmissionControl;
 import com.example.service.UDPServer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -8,13 +10,20 @@ import org.springframework.context.annotation.Configuration;
 public class UDPServerConfig {
 
     @Bean(name = "temperatureServer")
-    public UDPServer temperatureServer(WarehouseProperties properties) {
-        return new UDPServer(properties.temperaturePort());
+    public UDPServer temperatureServer(WarehouseProperties properties, AdmissionProperties admission,
+                                       StartupProperties startup, MeterRegistry meterRegistry) {
+        return new UDPServer(properties.temperaturePort(),
+                admissionControl(admission, meterRegistry, properties.temperaturePort()), startup.bufferSize());
     }
 
     @Bean(name = "humidityServer")
-    public UDPServer humidityServer(WarehouseProperties properties) {
-        return new UDPServer(properties.humidityPort());
+    public UDPServer humidityServer(WarehouseProperties properties, AdmissionProperties admission,
+                                    StartupProperties startup, MeterRegistry meterRegistry) {
+        return new UDPServer(properties.humidityPort(),
+                admissionControl(admission, meterRegistry, properties.humidityPort()), startup.bufferSize());
     }
-}
 
+    private AdmissionControl admissionControl(AdmissionProperties admission, MeterRegistry meterRegistry, int port) {
+        return admission.enabled() ? new AdmissionControl(admission, meterRegistry, port) : null;
+    }
+}
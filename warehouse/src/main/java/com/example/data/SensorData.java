@@ -1,10 +1,15 @@
 package com.example.data;
 
+/**
+ * @param timestamp event time in epoch milliseconds: the {@code ts=} field of the reading, or the time the
+ *                  reading was received if the sensor did not send one
+ */
 public record SensorData(
         String warehouseId,
         String sensorId,
         double value,
-        SensorType type
+        SensorType type,
+        long timestamp
 ) {
     public enum SensorType {
         TEMPERATURE,
@@ -0,0 +1,249 @@
+package com.example.service;
+
+import com.example.data.SensorData;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Netty TCP server for gateways that send many readings per connection.
+ * <p>
+ * Every frame is a 4 byte big-endian length followed by an 8 byte sequence number and any number of
+ * readings, each a type byte ({@link #TEMPERATURE} or {@link #HUMIDITY}), a 2 byte length and the reading
+ * in the UDP text format. Once all readings of a frame have been published, or one of them failed, the
+ * server answers with a frame holding the sequence number and {@link #ACK_PUBLISHED} or {@link #ACK_FAILED};
+ * frames can be acknowledged out of order.
+ * <p>
+ * Readings emitted but not yet completed count as in flight. Above the high watermark the server stops
+ * reading from all connections, so TCP flow control pushes back on the gateways, and it resumes below the
+ * low watermark. A frame may hold at most {@code maxReadingsPerFrame} readings, so a single frame cannot
+ * overshoot the high watermark by more than that; larger frames are answered with {@link #ACK_FAILED}.
+ */
+@Slf4j
+public class TCPServer {
+    public static final byte TEMPERATURE = 0;
+    public static final byte HUMIDITY = 1;
+    public static final byte ACK_PUBLISHED = 0;
+    public static final byte ACK_FAILED = 1;
+
+    private final int port;
+    private final int maxFrameLength;
+    private final int maxReadingsPerFrame;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+    private final ChannelGroup channels;
+    private final Sinks.Many<FramedReading> readingSink;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // written under the server lock, read without it so the common case of completing a reading stays lock-free
+    private volatile boolean paused;
+
+    public TCPServer(int port, int maxFrameLength, int maxReadingsPerFrame, int highWatermark, int lowWatermark) {
+        if (maxReadingsPerFrame < 1 || maxReadingsPerFrame > highWatermark) {
+            throw new IllegalArgumentException("maxReadingsPerFrame must be between 1 and the high watermark ("
+                    + highWatermark + "), was " + maxReadingsPerFrame);
+        }
+        this.port = port;
+        this.maxFrameLength = maxFrameLength;
+        this.maxReadingsPerFrame = maxReadingsPerFrame;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.bossGroup = new NioEventLoopGroup(1);
+        this.workerGroup = new NioEventLoopGroup();
+        this.channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        // unbounded: reads pause at the high watermark, so it holds at most that many readings plus the frames
+        // already read off the sockets, each capped at maxReadingsPerFrame
+        this.readingSink = Sinks.many().unicast().onBackpressureBuffer();
+    }
+
+    public Flux<FramedReading> getReadingFlux() {
+        return readingSink.asFlux();
+    }
+
+    public void start() {
+        ServerBootstrap b = new ServerBootstrap();
+        b.group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(
+                                new LengthFieldBasedFrameDecoder(maxFrameLength, 0, 4, 0, 4),
+                                new LengthFieldPrepender(4),
+                                new FrameHandler());
+                    }
+                });
+
+        b.bind(port).addListener(future -> {
+            if (future.isSuccess()) {
+                log.info("TCP port {} bound", port);
+            } else {
+                log.error("Failed to bind TCP port {}", port, future.cause());
+            }
+        });
+    }
+
+    public void shutdown() {
+        channels.close();
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void emit(List<FramedReading> readings) {
+        if (inFlight.addAndGet(readings.size()) >= highWatermark && !paused) {
+            updateAutoRead();
+        }
+        // frames arrive on several event loops, the sink needs serialized emission
+        synchronized (readingSink) {
+            for (FramedReading reading : readings) {
+                if (readingSink.tryEmitNext(reading).isFailure()) {
+                    reading.frame().complete(false);
+                }
+            }
+        }
+    }
+
+    private void onCompleted() {
+        if (inFlight.decrementAndGet() <= lowWatermark && paused) {
+            updateAutoRead();
+        }
+    }
+
+    private synchronized void updateAutoRead() {
+        int current = inFlight.get();
+        if (!paused && current >= highWatermark) {
+            paused = true;
+            log.warn("{} readings in flight, pausing reads on TCP port {}", current, port);
+        } else if (paused && current <= lowWatermark) {
+            paused = false;
+            log.info("{} readings in flight, resuming reads on TCP port {}", current, port);
+        } else {
+            return;
+        }
+        for (Channel channel : channels) {
+            channel.config().setAutoRead(!paused);
+        }
+    }
+
+    /**
+     * A reading received over TCP and the frame that has to be acknowledged once it completes.
+     */
+    public record FramedReading(SensorData.SensorType type, String message, long receivedAt, Frame frame) {}
+
+    /**
+     * Tracks the readings of one frame; the last one to complete sends the acknowledgement.
+     */
+    public final class Frame {
+        private final Channel channel;
+        private final long sequence;
+        private final AtomicInteger remaining = new AtomicInteger();
+        private volatile boolean failed;
+
+        private Frame(Channel channel, long sequence) {
+            this.channel = channel;
+            this.sequence = sequence;
+        }
+
+        public long sequence() {
+            return sequence;
+        }
+
+        /** Marks one reading of the frame as published or failed. */
+        public void complete(boolean published) {
+            if (!published) {
+                failed = true;
+            }
+            onCompleted();
+            if (remaining.decrementAndGet() == 0) {
+                acknowledge(channel, sequence, failed ? ACK_FAILED : ACK_PUBLISHED);
+            }
+        }
+    }
+
+    private static void acknowledge(Channel channel, long sequence, byte status) {
+        ByteBuf ack = channel.alloc().buffer(9).writeLong(sequence).writeByte(status);
+        channel.writeAndFlush(ack);
+    }
+
+    private final class FrameHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            channels.add(ctx.channel());
+            // the channel may join while reads are paused for everyone else
+            ctx.channel().config().setAutoRead(!paused);
+            ctx.fireChannelActive();
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            if (frame.readableBytes() < Long.BYTES) {
+                log.warn("Closing connection from {}: frame of {} bytes has no sequence number",
+                        ctx.channel().remoteAddress(), frame.readableBytes());
+                ctx.close();
+                return;
+            }
+            long receivedAt = System.currentTimeMillis();
+            long sequence = frame.readLong();
+            Frame ack = new Frame(ctx.channel(), sequence);
+            List<FramedReading> readings = new ArrayList<>();
+            while (frame.isReadable()) {
+                if (readings.size() == maxReadingsPerFrame) {
+                    log.warn("Rejecting frame {} from {}: more than {} readings",
+                            sequence, ctx.channel().remoteAddress(), maxReadingsPerFrame);
+                    acknowledge(ctx.channel(), sequence, ACK_FAILED);
+                    return;
+                }
+                SensorData.SensorType type = frame.readableBytes() >= 3 ? type(frame.readByte()) : null;
+                int length = type == null ? -1 : frame.readUnsignedShort();
+                if (type == null || length > frame.readableBytes()) {
+                    log.warn("Rejecting malformed frame {} from {}", sequence, ctx.channel().remoteAddress());
+                    acknowledge(ctx.channel(), sequence, ACK_FAILED);
+                    return;
+                }
+                String message = frame.readCharSequence(length, StandardCharsets.UTF_8).toString();
+                readings.add(new FramedReading(type, message, receivedAt, ack));
+            }
+            if (readings.isEmpty()) {
+                acknowledge(ctx.channel(), sequence, ACK_PUBLISHED);
+                return;
+            }
+            ack.remaining.set(readings.size());
+            emit(readings);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("Closing connection from {}: {}", ctx.channel().remoteAddress(), cause.toString());
+            ctx.close();
+        }
+
+        private SensorData.SensorType type(byte code) {
+            return switch (code) {
+                case TEMPERATURE -> SensorData.SensorType.TEMPERATURE;
+                case HUMIDITY -> SensorData.SensorType.HUMIDITY;
+                default -> null;
+            };
+        }
+    }
+}
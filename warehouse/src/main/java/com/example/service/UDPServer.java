@@ -1,30 +1,64 @@
 package com.example.service;
 
+import com.example.admission.AdmissionControl;
+import com.example.admission.Offender;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.channel.socket.nio.NioDatagramChannel;
+import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Netty UDP server for receiving UPD data from clients.
+ * <p>
+ * Datagrams received before the message flux is subscribed are buffered, up to the configured buffer size,
+ * so the port can be bound before the downstream pipeline is ready.
  */
+@Slf4j
 public class UDPServer {
     private final int port;
     private final EventLoopGroup group;
-    private final Sinks.Many<String> messageSink;
+    private final Sinks.Many<Datagram> messageSink;
+    private final AdmissionControl admission;
+    private volatile Channel channel;
+    // confined to the channel's event loop
+    private boolean firstAccepted;
+    private long overflowed;
 
     public UDPServer(int port) {
+        this(port, null);
+    }
+
+    /**
+     * @param admission rate limits applied before a datagram is decoded, or null to admit everything
+     */
+    public UDPServer(int port, AdmissionControl admission) {
+        this(port, admission, Queues.SMALL_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize messages held while there is no subscriber or the subscriber lags behind
+     */
+    public UDPServer(int port, AdmissionControl admission, int bufferSize) {
         this.port = port;
         this.group = new NioEventLoopGroup();
         //a Sink is a special type of reactive publisher that allows programmatic emission of events into a Reactive Stream (Mono/Flux).
         // It provides a way to manually push data into a reactive stream.
-        this.messageSink = Sinks.many().multicast().onBackpressureBuffer();
+        this.messageSink = Sinks.many().multicast().onBackpressureBuffer(bufferSize, false);
+        this.admission = admission;
     }
 
-    public Flux<String> getMessageFlux() {
+    public Flux<Datagram> getMessageFlux() {
         return messageSink.asFlux();
     }
 
@@ -35,21 +69,71 @@ public class UDPServer {
                 .handler(new ChannelInitializer<Channel>() {
                     @Override
                     protected void initChannel(Channel ch) {
+                        channel = ch;
+                        if (admission != null) {
+                            long sweepMillis = admission.sweepInterval().toMillis();
+                            ch.eventLoop().scheduleAtFixedRate(() -> admission.sweep(System.nanoTime()),
+                                    sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+                        }
                         ch.pipeline().addLast(new SimpleChannelInboundHandler<DatagramPacket>() {
                             @Override
                             protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+                                if (admission != null && !admission.admit(msg.sender(), msg.content(), System.nanoTime())) {
+                                    return;
+                                }
+                                long receivedAt = System.currentTimeMillis();
                                 String reading = msg.content().toString(java.nio.charset.StandardCharsets.UTF_8);
                                 System.out.println("UPD client data: " + reading);
-                                messageSink.tryEmitNext(reading);
+                                if (!firstAccepted) {
+                                    firstAccepted = true;
+                                    log.info("First datagram accepted on port {} {} ms after JVM start", port, uptimeMillis());
+                                }
+                                if (messageSink.tryEmitNext(new Datagram(reading, receivedAt)).isFailure() && overflowed++ % 1000 == 0) {
+                                    log.warn("Message buffer of port {} full, {} datagrams dropped so far", port, overflowed);
+                                }
                             }
                         });
                     }
                 });
 
-        b.bind(port);
+        b.bind(port).addListener(future -> {
+            if (future.isSuccess()) {
+                log.info("UDP port {} bound {} ms after JVM start", port, uptimeMillis());
+            } else {
+                log.error("Failed to bind UDP port {}", port, future.cause());
+            }
+        });
+    }
+
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * Sources and sensors currently over their rate limit. Read on the channel's event loop, which owns
+     * the admission state.
+     */
+    public List<Offender> offenders() {
+        Channel ch = channel;
+        if (admission == null || ch == null) {
+            return List.of();
+        }
+        try {
+            return ch.eventLoop().submit(() -> admission.offenders(System.nanoTime())).get(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while listing offenders on port " + port, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to list offenders on port " + port, e);
+        }
     }
 
     public void shutdown() {
         group.shutdownGracefully();
     }
+
+    /**
+     * @param receivedAt epoch milliseconds at which the datagram was read off the socket
+     */
+    public record Datagram(String message, long receivedAt) {}
 }
@@ -1,5 +1,6 @@
 package com.example.service;
 
+import com.example.config.StartupProperties;
 import com.example.config.WarehouseProperties;
 import com.example.data.SensorData;
 import jakarta.annotation.PostConstruct;
@@ -7,35 +8,56 @@ import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.kafka.sender.KafkaSender;
 import reactor.kafka.sender.SenderRecord;
 import reactor.kafka.sender.SenderResult;
+import reactor.util.retry.Retry;
 
+import java.time.Instant;
+
+/**
+ * Binds the UDP servers, and the TCP server if enabled, and forwards their readings to Kafka. The pipeline
+ * is only subscribed once the Kafka sender has fetched the topic metadata; until then the servers buffer
+ * what they receive. It is never lazily initialized, since nothing else depends on it.
+ * <p>
+ * Readings from TCP carry their frame as correlation metadata, so the frame is acknowledged once Kafka
+ * has answered for all of its readings.
+ */
 @Service
+@Lazy(false)
 @Slf4j
 public class WarehouseService {
     private final UDPServer temperatureServer;
     private final UDPServer humidityServer;
+    private final TCPServer tcpServer;
     private final KafkaSender<String, SensorData> kafkaSender;
     private final WarehouseProperties properties;
-
+    private final StartupProperties startup;
 
     private String topic;
 
     public WarehouseService(
             WarehouseProperties properties,
+            StartupProperties startup,
             KafkaSender<String, SensorData> kafkaSender,
             @Qualifier("temperatureServer") UDPServer temperatureServer,
             @Qualifier("humidityServer") UDPServer humidityServer,
+            @Nullable TCPServer tcpServer,
             @Value("${spring.kafka.topic}") String topic
 
     ) {
         this.properties = properties;
+        this.startup = startup;
         this.kafkaSender = kafkaSender;
         this.temperatureServer = temperatureServer;
         this.humidityServer = humidityServer;
+        this.tcpServer = tcpServer;
         this.topic = topic;
     }
 
@@ -43,47 +65,118 @@ public class WarehouseService {
     public void start() {
         temperatureServer.start();
         humidityServer.start();
+        if (tcpServer != null) {
+            tcpServer.start();
+        }
 
-        Flux.merge(
+        awaitKafkaReady().thenMany(Flux.merge(
                         temperatureServer.getMessageFlux()
-                                .map(msg -> parseReading(msg, SensorData.SensorType.TEMPERATURE))
-                                .onErrorContinue((ex, msg) -> log.warn("Skipping bad message: {}", msg, ex)),
+                                .map(msg -> parseReading(msg.message(), msg.receivedAt(),
+                                        SensorData.SensorType.TEMPERATURE))
+                                .onErrorContinue(this::skipDatagram)
+                                .map(reading -> toRecord(reading, null)),
                         humidityServer.getMessageFlux()
-                                .map(msg -> parseReading(msg, SensorData.SensorType.HUMIDITY))
-                                .onErrorContinue((ex, msg) -> log.warn("Skipping bad message: {}", msg, ex))
-                )
+                                .map(msg -> parseReading(msg.message(), msg.receivedAt(),
+                                        SensorData.SensorType.HUMIDITY))
+                                .onErrorContinue(this::skipDatagram)
+                                .map(reading -> toRecord(reading, null)),
+                        tcpRecords()
+                ))
                 .transform(this::sendToKafka)
-                .subscribe();
+                .subscribe(this::acknowledge);
 
         log.info("Warehouse service started. Warehouse ID: {}", properties.id());
     }
 
-     private SensorData parseReading(String message, SensorData.SensorType type) {
+    private Mono<Void> awaitKafkaReady() {
+        // fetching metadata blocks for up to max.block.ms, so keep it off the startup thread
+        return kafkaSender.doOnProducer(producer -> producer.partitionsFor(topic))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(partitions -> log.info("Kafka sender ready. Topic {} has {} partitions", topic, partitions.size()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, startup.readinessBackoff())
+                        .maxBackoff(startup.readinessMaxBackoff())
+                        .doBeforeRetry(signal -> log.warn("Kafka sender not ready, buffering readings: {}",
+                                signal.failure().toString())))
+                .then();
+    }
+
+     private SensorData parseReading(String message, long receivedAt, SensorData.SensorType type) {
         System.out.println("message "+ message);
         String[] parts = message.split(";");
         String sensorId = parts[0].split("=")[1].trim();
         double value = Double.parseDouble(parts[1].split("=")[1].trim());
-        return new SensorData(properties.id(), sensorId, value, type);
+        long timestamp = receivedAt;
+        for (int i = 2; i < parts.length; i++) {
+            String[] field = parts[i].split("=", 2);
+            if (field.length == 2 && field[0].trim().equals("ts")) {
+                timestamp = parseTimestamp(field[1].trim());
+            }
+        }
+        return new SensorData(properties.id(), sensorId, value, type, timestamp);
     }
 
-     private Flux<SenderResult<Void>> sendToKafka(Flux<SensorData> readings) {
-        return readings
-                .doOnNext(reading -> log.info("Sending reading: {}", reading))
-                .map(reading -> SenderRecord.<String, SensorData, Void>create(
-                        topic,
-                        null,
-                        System.currentTimeMillis(),
-                        reading.sensorId(),
-                        reading,
-                        null
-                ))
+    /** Accepts epoch milliseconds or an ISO-8601 instant such as {@code 2024-03-01T12:00:00Z}. */
+    private static long parseTimestamp(String ts) {
+        return ts.chars().allMatch(Character::isDigit)
+                ? Long.parseLong(ts)
+                : Instant.parse(ts).toEpochMilli();
+    }
+
+    private void skipDatagram(Throwable ex, Object datagram) {
+        Object message = datagram instanceof UDPServer.Datagram d ? d.message() : datagram;
+        log.warn("Skipping bad message: {}", message, ex);
+    }
+
+    private Flux<SenderRecord<String, SensorData, TCPServer.Frame>> tcpRecords() {
+        if (tcpServer == null) {
+            return Flux.empty();
+        }
+        return tcpServer.getReadingFlux()
+                .handle((framed, sink) -> {
+                    try {
+                        SensorData reading = parseReading(framed.message(), framed.receivedAt(), framed.type());
+                        sink.next(toRecord(reading, framed.frame()));
+                    } catch (RuntimeException ex) {
+                        log.warn("Skipping bad message: {}", framed.message(), ex);
+                        framed.frame().complete(false);
+                    }
+                });
+    }
+
+    private SenderRecord<String, SensorData, TCPServer.Frame> toRecord(SensorData reading, TCPServer.Frame frame) {
+        return SenderRecord.create(
+                topic,
+                null,
+                reading.timestamp(),
+                reading.sensorId(),
+                reading,
+                frame
+        );
+    }
+
+     private Flux<SenderResult<TCPServer.Frame>> sendToKafka(
+            Flux<SenderRecord<String, SensorData, TCPServer.Frame>> records) {
+        return records
+                .doOnNext(record -> log.info("Sending reading: {}", record.value()))
                 .as(kafkaSender::send); // Use .as() instead of .transform()
     }
 
+    private void acknowledge(SenderResult<TCPServer.Frame> result) {
+        if (result.exception() != null) {
+            log.warn("Failed to send reading: {}", result.exception().toString());
+        }
+        if (result.correlationMetadata() != null) {
+            result.correlationMetadata().complete(result.exception() == null);
+        }
+    }
+
     @PreDestroy
     public void shutdown() {
         temperatureServer.shutdown();
         humidityServer.shutdown();
+        if (tcpServer != null) {
+            tcpServer.shutdown();
+        }
         kafkaSender.close();
     }
 }
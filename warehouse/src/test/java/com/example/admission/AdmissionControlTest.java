@@ -0,0 +1,141 @@
+package com.example.admission;
+
+import com.example.config.AdmissionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class AdmissionControlTest {
+    private static final long SECOND = 1_000_000_000L;
+    private static final InetSocketAddress GATEWAY = new InetSocketAddress("10.0.0.1", 5000);
+    private static final InetSocketAddress OTHER_GATEWAY = new InetSocketAddress("10.0.0.2", 5000);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldLimitEachSensorIndependently() {
+        AdmissionControl admission = admission(1000, 1000, 1, 3, 0);
+
+        assertThat(admitted(admission, GATEWAY, "sensorId=t1;value=20", 10)).isEqualTo(3);
+        assertThat(admitted(admission, GATEWAY, "sensorId= t2 ;value=20", 10)).isEqualTo(3);
+        assertThat(registry.get("warehouse.udp.admission").tag("limit", "sensor").tag("outcome", "dropped")
+                .counter().count()).isEqualTo(14);
+    }
+
+    @Test
+    void shouldLimitEachSourceAddress() {
+        AdmissionControl admission = admission(1, 5, 1000, 1000, 0);
+
+        assertThat(admitted(admission, GATEWAY, "garbage without fields", 10)).isEqualTo(5);
+        assertThat(admitted(admission, OTHER_GATEWAY, "garbage without fields", 10)).isEqualTo(5);
+    }
+
+    @Test
+    void shouldRefillTokensOverTime() {
+        AdmissionControl admission = admission(1000, 1000, 2, 2, 0);
+        ByteBuf reading = datagram("sensorId=t1;value=20");
+
+        assertThat(admission.admit(GATEWAY, reading, 0)).isTrue();
+        assertThat(admission.admit(GATEWAY, reading, 0)).isTrue();
+        assertThat(admission.admit(GATEWAY, reading, 0)).isFalse();
+        assertThat(admission.admit(GATEWAY, reading, SECOND / 2)).isTrue();
+        assertThat(admission.admit(GATEWAY, reading, SECOND / 2)).isFalse();
+    }
+
+    @Test
+    void shouldSampleExcessTraffic() {
+        AdmissionControl admission = admission(1000, 1000, 1, 1, 10);
+
+        assertThat(admitted(admission, GATEWAY, "sensorId=t1;value=20", 101)).isEqualTo(11);
+        assertThat(admission.offenders(0)).singleElement().satisfies(offender -> {
+            assertThat(offender.dropped()).isEqualTo(90);
+            assertThat(offender.sampled()).isEqualTo(10);
+        });
+    }
+
+    @Test
+    void shouldListOffendersByName() {
+        AdmissionControl admission = admission(1, 3, 1, 1, 0);
+        admitted(admission, GATEWAY, "sensorId=t1;value=20", 6);
+        admitted(admission, OTHER_GATEWAY, "sensorId=t9;value=20", 1);
+
+        List<Offender> offenders = admission.offenders(0);
+
+        assertThat(offenders).extracting(Offender::limit, Offender::id, Offender::dropped)
+                .containsExactly(tuple("source", "10.0.0.1", 3L), tuple("sensor", "t1", 2L));
+    }
+
+    @Test
+    void shouldForgetIdleBucketsAfterTtl() {
+        AdmissionControl admission = admission(1000, 1000, 0.001, 1, 0);
+        ByteBuf reading = datagram("sensorId=t1;value=20");
+
+        assertThat(admission.admit(GATEWAY, reading, 0)).isTrue();
+        assertThat(admission.admit(GATEWAY, reading, 0)).isFalse();
+        admission.sweep(61 * SECOND);
+
+        assertThat(admission.offenders(61 * SECOND)).isEmpty();
+        assertThat(admission.admit(GATEWAY, reading, 61 * SECOND)).isTrue();
+    }
+
+    @Test
+    void tableShouldAdmitUntrackedKeysWhenFull() {
+        TokenBucketTable table = new TokenBucketTable(1, 1, 0, 2, 60 * SECOND);
+
+        assertThat(table.acquire(1, 0)).isEqualTo(TokenBucketTable.Decision.ADMIT);
+        assertThat(table.acquire(2, 0)).isEqualTo(TokenBucketTable.Decision.ADMIT);
+        assertThat(table.acquire(3, 0)).isEqualTo(TokenBucketTable.Decision.UNTRACKED);
+        assertThat(table.acquire(1, 0)).isEqualTo(TokenBucketTable.Decision.FIRST_DROP);
+        assertThat(table.acquire(1, 0)).isEqualTo(TokenBucketTable.Decision.DROP);
+        // once the other keys have been idle past the TTL their slots are reclaimed
+        assertThat(table.acquire(3, 61 * SECOND)).isEqualTo(TokenBucketTable.Decision.ADMIT);
+        assertThat(table.size()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void tableSweepShouldKeepLiveBucketsReachable() {
+        TokenBucketTable table = new TokenBucketTable(1, 1, 0, 512, 60 * SECOND);
+        for (long key = 0; key < 512; key++) {
+            table.acquire(key, key % 2 == 0 ? 0 : 30 * SECOND);
+        }
+
+        table.sweep(61 * SECOND);
+
+        // even keys expired and were removed; odd keys still hold their drained bucket wherever they moved
+        assertThat(table.size()).isEqualTo(256);
+        for (long key = 1; key < 512; key += 2) {
+            assertThat(table.acquire(key, 30 * SECOND + 1)).isEqualTo(TokenBucketTable.Decision.FIRST_DROP);
+        }
+        assertThat(table.size()).isEqualTo(256);
+    }
+
+    private AdmissionControl admission(double sourceRate, double sourceBurst, double sensorRate, double sensorBurst,
+                                       int sampleEvery) {
+        return new AdmissionControl(new AdmissionProperties(true, sourceRate, sourceBurst, sensorRate, sensorBurst,
+                sampleEvery, 1024, Duration.ofSeconds(60), 10), registry, 3344);
+    }
+
+    private static int admitted(AdmissionControl admission, InetSocketAddress sender, String message, int count) {
+        ByteBuf content = datagram(message);
+        int admitted = 0;
+        for (int i = 0; i < count; i++) {
+            if (admission.admit(sender, content, 0)) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+
+    private static ByteBuf datagram(String message) {
+        return Unpooled.copiedBuffer(message, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.service;
+
+import com.example.data.SensorData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class TCPServerTest {
+    private final int port = 9988;
+    private TCPServer tcpServer;
+    private Socket socket;
+    private final List<TCPServer.FramedReading> received = new CopyOnWriteArrayList<>();
+    private Disposable subscription;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tcpServer = new TCPServer(port, 64 * 1024, 3, 3, 1);
+        tcpServer.start();
+        subscription = tcpServer.getReadingFlux().subscribe(received::add);
+        socket = connect();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        subscription.dispose();
+        socket.close();
+        tcpServer.shutdown();
+    }
+
+    @Test
+    void shouldAcknowledgeFrameOnceAllReadingsArePublished() throws Exception {
+        send(7, TCPServer.TEMPERATURE, "sensorId=t1;value=21.5", TCPServer.HUMIDITY, "sensorId=h1;value=55.0");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> received.size() == 2);
+        assertThat(received).extracting(TCPServer.FramedReading::type)
+                .containsExactly(SensorData.SensorType.TEMPERATURE, SensorData.SensorType.HUMIDITY);
+        assertThat(received).extracting(TCPServer.FramedReading::message)
+                .containsExactly("sensorId=t1;value=21.5", "sensorId=h1;value=55.0");
+        assertThat(received.get(0).frame().sequence()).isEqualTo(7);
+
+        received.get(0).frame().complete(true);
+        assertThat(socket.getInputStream().available()).isZero();
+        received.get(1).frame().complete(true);
+
+        assertAck(7, TCPServer.ACK_PUBLISHED);
+    }
+
+    @Test
+    void shouldReportFailedReadingsInTheAcknowledgement() throws Exception {
+        send(8, TCPServer.TEMPERATURE, "sensorId=t1;value=21.5", TCPServer.TEMPERATURE, "sensorId=t2;value=22.0");
+        await().atMost(Duration.ofSeconds(5)).until(() -> received.size() == 2);
+
+        received.get(0).frame().complete(false);
+        received.get(1).frame().complete(true);
+
+        assertAck(8, TCPServer.ACK_FAILED);
+    }
+
+    @Test
+    void shouldRejectMalformedFrameWithoutEmittingReadings() throws Exception {
+        send(9, (byte) 5, "sensorId=t1;value=21.5");
+        assertAck(9, TCPServer.ACK_FAILED);
+
+        send(10);
+        assertAck(10, TCPServer.ACK_PUBLISHED);
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void shouldRejectFramesWithMoreReadingsThanAllowed() throws Exception {
+        send(11, TCPServer.TEMPERATURE, "sensorId=t1;value=1", TCPServer.TEMPERATURE, "sensorId=t2;value=2",
+                TCPServer.TEMPERATURE, "sensorId=t3;value=3", TCPServer.TEMPERATURE, "sensorId=t4;value=4");
+        assertAck(11, TCPServer.ACK_FAILED);
+
+        assertThat(received).isEmpty();
+        assertThat(tcpServer.inFlight()).isZero();
+    }
+
+    @Test
+    void shouldPauseReadsAboveHighWatermarkUntilReadingsComplete() throws Exception {
+        send(1, TCPServer.TEMPERATURE, "sensorId=t1;value=1", TCPServer.TEMPERATURE, "sensorId=t2;value=2",
+                TCPServer.TEMPERATURE, "sensorId=t3;value=3");
+        await().atMost(Duration.ofSeconds(5)).until(() -> received.size() == 3);
+
+        // reads are paused for every gateway, including ones connecting afterwards
+        try (Socket other = connect()) {
+            send(other, 2, TCPServer.HUMIDITY, "sensorId=h1;value=50");
+            send(3, TCPServer.HUMIDITY, "sensorId=h2;value=50");
+            Thread.sleep(300);
+            assertThat(received).hasSize(3);
+            assertThat(tcpServer.inFlight()).isEqualTo(3);
+
+            received.get(0).frame().complete(true);
+            received.get(1).frame().complete(true);
+
+            await().atMost(Duration.ofSeconds(5)).until(() -> received.size() == 5);
+            assertThat(received.subList(3, 5)).extracting(r -> r.frame().sequence()).containsExactlyInAnyOrder(2L, 3L);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            try {
+                Socket connected = new Socket("localhost", port);
+                connected.setSoTimeout(5_000);
+                return connected;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void send(long sequence, Object... readings) throws IOException {
+        send(socket, sequence, readings);
+    }
+
+    private static void send(Socket target, long sequence, Object... readings) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeLong(sequence);
+        for (int i = 0; i < readings.length; i += 2) {
+            byte[] message = ((String) readings[i + 1]).getBytes(StandardCharsets.UTF_8);
+            out.writeByte((Byte) readings[i]);
+            out.writeShort(message.length);
+            out.write(message);
+        }
+        DataOutputStream frame = new DataOutputStream(target.getOutputStream());
+        frame.writeInt(body.size());
+        body.writeTo(frame);
+        frame.flush();
+    }
+
+    private void assertAck(long sequence, byte status) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        assertThat(in.readInt()).isEqualTo(9);
+        assertThat(in.readLong()).isEqualTo(sequence);
+        assertThat(in.readByte()).isEqualTo(status);
+    }
+}
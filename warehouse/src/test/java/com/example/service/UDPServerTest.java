@@ -8,14 +8,25 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.channel.socket.nio.NioDatagramChannel;
+import com.example.admission.AdmissionControl;
+import com.example.admission.Offender;
+import com.example.config.AdmissionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 public class UDPServerTest {
     private UDPServer udpServer;
@@ -34,7 +45,8 @@ public class UDPServerTest {
 
     @Test
     public void testUDPMessageReception() throws InterruptedException {
-        Flux<String> messageFlux = udpServer.getMessageFlux();
+        Flux<UDPServer.Datagram> messageFlux = udpServer.getMessageFlux();
+        long sentAt = System.currentTimeMillis();
 
         // Send a test message via UDP
         String testMessage = "Hello, UDP!";
@@ -42,11 +54,38 @@ public class UDPServerTest {
 
         // Verify the message is received correctly
         StepVerifier.create(messageFlux)
-                .expectNext(testMessage)
+                .expectNextMatches(datagram -> datagram.message().equals(testMessage)
+                        && datagram.receivedAt() >= sentAt)
                 .thenCancel()//cancel the infinite stream after receiving testMessage.
                 .verify();
     }
 
+    @Test
+    public void testRejectedDatagramsNeverReachTheMessageFlux() throws InterruptedException {
+        AdmissionControl admission = new AdmissionControl(new AdmissionProperties(true, 1000, 1000, 0.001, 1,
+                0, 1024, Duration.ofSeconds(60), 10), new SimpleMeterRegistry(), 9998);
+        UDPServer limited = new UDPServer(9998, admission);
+        limited.start();
+        try {
+            Flux<UDPServer.Datagram> messageFlux = limited.getMessageFlux();
+            List<String> received = new CopyOnWriteArrayList<>();
+            Disposable subscription = messageFlux.subscribe(datagram -> received.add(datagram.message()));
+
+            // t1 has a burst of one, its second reading is over the limit
+            sendUDPMessage("localhost", 9998, "sensorId=t1;value=20");
+            sendUDPMessage("localhost", 9998, "sensorId=t1;value=21");
+            sendUDPMessage("localhost", 9998, "sensorId=t2;value=22");
+
+            await().atMost(Duration.ofSeconds(5)).until(() -> received.size() >= 2);
+            Thread.sleep(200);
+            subscription.dispose();
+            assertThat(received).containsExactly("sensorId=t1;value=20", "sensorId=t2;value=22");
+            assertThat(limited.offenders()).extracting(Offender::id).containsExactly("t1");
+        } finally {
+            limited.shutdown();
+        }
+    }
+
     private void sendUDPMessage(String host, int port, String message) throws InterruptedException {
         EventLoopGroup group = new NioEventLoopGroup();
         try {
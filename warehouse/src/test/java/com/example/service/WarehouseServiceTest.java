@@ -4,11 +4,13 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import com.example.config.StartupProperties;
 import com.example.config.WarehouseProperties;
 import com.example.data.SensorData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -18,13 +20,18 @@ import org.reactivestreams.Publisher;
 import org.slf4j.LoggerFactory;
 import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.kafka.sender.KafkaSender;
 import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -41,8 +48,12 @@ class WarehouseServiceTest {
     @Mock
     private WarehouseProperties properties;
 
+    private static final long RECEIVED_AT = 1_700_000_000_000L;
+
     private String topic = "test-topic";
 
+    private StartupProperties startup = new StartupProperties(256, Duration.ofMillis(10), Duration.ofMillis(50));
+
     private WarehouseService warehouseService;
 
     private ListAppender<ILoggingEvent> logAppender;
@@ -55,15 +66,16 @@ class WarehouseServiceTest {
         logAppender.start();
         logger.addAppender(logAppender);
 
-        warehouseService = new WarehouseService(properties, kafkaSender, temperatureServer, humidityServer, topic);
+        warehouseService = new WarehouseService(properties, startup, kafkaSender, temperatureServer, humidityServer, null, topic);
         when(properties.id()).thenReturn("warehouse-1");
+        doReturn(Mono.just(List.of())).when(kafkaSender).doOnProducer(any());
     }
 
     @Test
     void testStartSuccessfulInitialization() {
         // Given
-        Flux<String> temperatureFlux = Flux.just("sensorId=temp1;value=25.5");
-        Flux<String> humidityFlux = Flux.just("sensorId=hum1;value=60.0");
+        Flux<UDPServer.Datagram> temperatureFlux = Flux.just(datagram("sensorId=temp1;value=25.5"));
+        Flux<UDPServer.Datagram> humidityFlux = Flux.just(datagram("sensorId=hum1;value=60.0"));
 
         when(temperatureServer.getMessageFlux()).thenReturn(temperatureFlux);
         when(humidityServer.getMessageFlux()).thenReturn(humidityFlux);
@@ -88,6 +100,7 @@ class WarehouseServiceTest {
                 warehouseService,
                 "parseReading",
                 message,
+                RECEIVED_AT,
                 SensorData.SensorType.TEMPERATURE
         );
 
@@ -97,6 +110,29 @@ class WarehouseServiceTest {
         assertEquals("temp1", result.sensorId());
         assertEquals(25.5, result.value());
         assertEquals(SensorData.SensorType.TEMPERATURE, result.type());
+        assertEquals(RECEIVED_AT, result.timestamp());
+    }
+
+    @Test
+    void testParseReadingTimestampField() {
+        SensorData epochMillis = ReflectionTestUtils.invokeMethod(
+                warehouseService,
+                "parseReading",
+                "sensorId=temp1;value=25.5; ts=1699999990000",
+                RECEIVED_AT,
+                SensorData.SensorType.TEMPERATURE
+        );
+        SensorData isoInstant = ReflectionTestUtils.invokeMethod(
+                warehouseService,
+                "parseReading",
+                "sensor_id=temp1; value=25.5; ts=2023-11-14T22:13:10Z",
+                RECEIVED_AT,
+                SensorData.SensorType.TEMPERATURE
+        );
+
+        assertEquals(1_699_999_990_000L, epochMillis.timestamp());
+        assertEquals(25.5, epochMillis.value());
+        assertEquals(1_699_999_990_000L, isoInstant.timestamp());
     }
 
     @Test
@@ -109,6 +145,7 @@ class WarehouseServiceTest {
                 warehouseService,
                 "parseReading",
                 message,
+                RECEIVED_AT,
                 SensorData.SensorType.HUMIDITY
         );
 
@@ -131,6 +168,7 @@ class WarehouseServiceTest {
                         warehouseService,
                         "parseReading",
                         invalidMessage,
+                        RECEIVED_AT,
                         SensorData.SensorType.TEMPERATURE
                 )
         );
@@ -151,8 +189,8 @@ class WarehouseServiceTest {
     void testErrorHandlingBadTemperatureMessage() {
         String invalidMsg = "invalid message";
         // Given: Simulating an invalid message in the temperature stream
-        Flux<String> temperatureFlux = Flux.just(invalidMsg);
-        Flux<String> humidityFlux = Flux.empty(); // No humidity data
+        Flux<UDPServer.Datagram> temperatureFlux = Flux.just(datagram(invalidMsg));
+        Flux<UDPServer.Datagram> humidityFlux = Flux.empty(); // No humidity data
 
         when(temperatureServer.getMessageFlux()).thenReturn(temperatureFlux);
         when(humidityServer.getMessageFlux()).thenReturn(humidityFlux);
@@ -194,8 +232,8 @@ class WarehouseServiceTest {
         String expectedTopic = "test-topic"; // Match the actual topic being used
 
         // Given: Simulating a valid humidity message in the humidity stream
-        Flux<String> temperatureFlux = Flux.empty();
-        Flux<String> humidityFlux = Flux.just(validHumidityMsg);
+        Flux<UDPServer.Datagram> temperatureFlux = Flux.empty();
+        Flux<UDPServer.Datagram> humidityFlux = Flux.just(datagram(validHumidityMsg));
 
         when(temperatureServer.getMessageFlux()).thenReturn(temperatureFlux);
         when(humidityServer.getMessageFlux()).thenReturn(humidityFlux);
@@ -227,6 +265,7 @@ class WarehouseServiceTest {
                     System.out.println("DEBUG: Validating Record - Topic: " + topic + ", Data: " + data);
 
                     return topic != null && topic.equals(expectedTopic) &&
+                            record.timestamp() == RECEIVED_AT && data.timestamp() == RECEIVED_AT &&
                             data != null && SensorData.SensorType.HUMIDITY.equals(data.type()) &&
                             data.value() == 60.0 &&
                             "warehouse-1".equals(data.warehouseId()); // If required
@@ -235,4 +274,76 @@ class WarehouseServiceTest {
                 .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    void testReadingsForwardedOnlyOnceKafkaSenderIsReady() {
+        AtomicInteger attempts = new AtomicInteger();
+        doReturn(Mono.defer(() -> attempts.incrementAndGet() < 3
+                ? Mono.error(new IllegalStateException("metadata unavailable"))
+                : Mono.just(List.of()))).when(kafkaSender).doOnProducer(any());
+        AtomicInteger subscriptions = new AtomicInteger();
+        when(temperatureServer.getMessageFlux()).thenReturn(Flux.just(datagram("sensorId=temp1;value=25.5"))
+                .doOnSubscribe(subscription -> subscriptions.incrementAndGet()));
+        when(humidityServer.getMessageFlux()).thenReturn(Flux.empty());
+        when(kafkaSender.send(any())).thenAnswer(invocation ->
+                Flux.from(invocation.<Publisher<?>>getArgument(0)).thenMany(Flux.empty()));
+
+        warehouseService.start();
+
+        // the UDP servers are bound straight away, the readings wait in their buffers for the sender
+        verify(temperatureServer).start();
+        verify(humidityServer).start();
+        assertThat(subscriptions).hasValue(0);
+        await().atMost(Duration.ofSeconds(5)).until(() -> subscriptions.get() == 1);
+        assertThat(attempts).hasValue(3);
+        assertThat(logAppender.list)
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .contains("Kafka sender ready. Topic test-topic has 0 partitions");
+    }
+
+    @Test
+    void testTcpFramesCompletedWithKafkaResults() {
+        TCPServer tcpServer = mock(TCPServer.class);
+        TCPServer.Frame frame = mock(TCPServer.Frame.class);
+        warehouseService = new WarehouseService(properties, startup, kafkaSender, temperatureServer, humidityServer,
+                tcpServer, topic);
+        when(temperatureServer.getMessageFlux()).thenReturn(Flux.empty());
+        when(humidityServer.getMessageFlux()).thenReturn(Flux.empty());
+        when(tcpServer.getReadingFlux()).thenReturn(Flux.just(
+                new TCPServer.FramedReading(SensorData.SensorType.HUMIDITY, "sensorId=hum1;value=60.0",
+                        RECEIVED_AT, frame),
+                new TCPServer.FramedReading(SensorData.SensorType.HUMIDITY, "invalid message",
+                        RECEIVED_AT, frame)));
+        when(kafkaSender.send(any())).thenAnswer(invocation ->
+                Flux.from(invocation.<Publisher<SenderRecord<String, SensorData, TCPServer.Frame>>>getArgument(0))
+                        .map(record -> result(record.correlationMetadata())));
+
+        warehouseService.start();
+
+        verify(tcpServer).start();
+        verify(frame, timeout(5000)).complete(true);
+        verify(frame, timeout(5000)).complete(false);
+    }
+
+    private static UDPServer.Datagram datagram(String message) {
+        return new UDPServer.Datagram(message, RECEIVED_AT);
+    }
+
+    private static SenderResult<TCPServer.Frame> result(TCPServer.Frame frame) {
+        return new SenderResult<>() {
+            @Override
+            public RecordMetadata recordMetadata() {
+                return null;
+            }
+
+            @Override
+            public Exception exception() {
+                return null;
+            }
+
+            @Override
+            public TCPServer.Frame correlationMetadata() {
+                return frame;
+            }
+        };
+    }
 }